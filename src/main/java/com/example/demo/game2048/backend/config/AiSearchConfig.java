@@ -0,0 +1,54 @@
+package com.example.demo.game2048.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class AiSearchConfig {
+
+    /**
+     * Dedicated pool for parallel AI search. Bounded below the core count by default so
+     * Tomcat request threads always keep a core of their own.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool aiSearchPool(@Value("${game.ai.parallelism:0}") int parallelism) {
+        int threads = parallelism > 0
+                ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+        return new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("ai-search-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Small, low-priority pool for speculative hint searches. When it falls behind, the oldest
+     * queued speculation (the one most likely to be stale) is dropped.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService speculativeSearchExecutor(@Value("${game.ai.speculation.threads:1}") int threads,
+                                                     @Value("${game.ai.speculation.queue-capacity:64}") int queueCapacity) {
+        int size = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "ai-speculate-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+        return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), factory, new ThreadPoolExecutor.DiscardOldestPolicy());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.game2048.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+public class BatchConfig {
+
+    /**
+     * Worker pool that plays simulated batch games, one game per worker at a time.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchExecutor(@Value("${game.batch.workers:0}") int workers) {
+        int threads = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "batch-sim-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * Runs asynchronous batch jobs. Each job fans its games out to the batchExecutor, so this pool
+     * only limits how many jobs share it; submissions beyond the queue capacity are rejected.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService batchJobExecutor(@Value("${game.batch.jobs.max-running:2}") int maxRunning,
+                                            @Value("${game.batch.jobs.max-queued:8}") int maxQueued) {
+        int threads = Math.max(1, maxRunning);
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "batch-job-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, maxQueued)), factory, new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -3,19 +3,35 @@ package com.example.demo.game2048.backend.controller;
 import com.example.demo.game2048.backend.dto.AiConfigDTO;
 import com.example.demo.game2048.backend.dto.BatchResultDTO;
 import com.example.demo.game2048.backend.dto.GameStateDTO;
+import com.example.demo.game2048.backend.dto.LeaderboardEntryDTO;
+import com.example.demo.game2048.backend.dto.MoveSequenceDTO;
+import com.example.demo.game2048.backend.dto.MoveSequenceResultDTO;
 import com.example.demo.game2048.backend.entity.GameRecord;
 import com.example.demo.game2048.backend.repository.GameRecordRepository;
+import com.example.demo.game2048.backend.service.AiAlgorithms;
+import com.example.demo.game2048.backend.service.AnalyticsStore;
+import com.example.demo.game2048.backend.service.BatchJob;
+import com.example.demo.game2048.backend.service.BoardLimitExceededException;
+import com.example.demo.game2048.backend.service.BatchJobService;
+import com.example.demo.game2048.backend.service.GameRecordQueue;
 import com.example.demo.game2048.backend.service.GameService;
+import com.example.demo.game2048.backend.service.HintSpeculator;
+import com.example.demo.game2048.backend.service.LeaderboardCache;
 import com.example.demo.game2048.backend.service.SessionService;
+import com.example.demo.game2048.backend.service.UserStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.net.URI;
 import java.util.*;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/game")
-@CrossOrigin(origins = {"http://localhost:5173", "https://two048-fe-1.onrender.com"})
+@CrossOrigin(origins = {"http://localhost:5173", "https://two048-fe-1.onrender.com"}, exposedHeaders = {"Link", "Deprecation"})
 public class GameController {
 
     @Autowired
@@ -27,6 +43,27 @@ public class GameController {
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private AiAlgorithms aiAlgorithms;
+
+    @Autowired
+    private HintSpeculator hintSpeculator;
+
+    @Autowired
+    private BatchJobService batchJobService;
+
+    @Autowired
+    private GameRecordQueue gameRecordQueue;
+
+    @Autowired
+    private LeaderboardCache leaderboardCache;
+
+    @Autowired
+    private AnalyticsStore analyticsStore;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
     // ====== SESSION MANAGEMENT ======
 
     @PostMapping("/session/create")
@@ -96,37 +133,41 @@ public class GameController {
     public ResponseEntity<GameStateDTO> aiMoveBoard(
             @RequestHeader("X-Session-Id") String sessionId,
             @PathVariable int boardId,
-            @RequestParam String algorithm) {
+            @RequestParam String algorithm,
+            @RequestParam(required = false, defaultValue = "0") long timeBudgetMs) {
         try {
-            gameService.markAiStarted(sessionId, boardId);
-
-            // 1. Lấy nước đi AI tính toán
-            String bestMove = gameService.getAiMove(sessionId, boardId, algorithm);
-
-            if (bestMove != null) {
-                // 2. Thực hiện di chuyển
-                gameService.move(sessionId, bestMove, boardId);
-            }
-
-            // 3. Lấy trạng thái hiện tại
-            GameStateDTO state = gameService.getGameState(sessionId, boardId);
-
-          
-            state.setSuggestedMove(bestMove);
-
+            GameStateDTO state = gameService.playAiMove(sessionId, boardId, algorithm, timeBudgetMs);
             return ResponseEntity.ok(state);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(401).build();
         }
     }
 
+    @PostMapping("/board/{boardId}/moves")
+    public ResponseEntity<MoveSequenceResultDTO> playMoveSequence(
+            @RequestHeader("X-Session-Id") String sessionId,
+            @PathVariable int boardId,
+            @RequestBody MoveSequenceDTO request) {
+        try {
+            String algorithm = request.getAlgorithm() != null ? request.getAlgorithm() : "EXPECTIMAX";
+            return ResponseEntity.ok(gameService.playMoves(sessionId, boardId, request.getDirections(),
+                    request.getAiMoves(), algorithm, request.getTimeBudgetMs()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(401).build();
+        } catch (IllegalArgumentException e) {
+            System.out.println("Rejected move sequence for board " + boardId + ": " + e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @GetMapping("/board/{boardId}/hint")
     public ResponseEntity<GameStateDTO> getHintForBoard(
             @RequestHeader("X-Session-Id") String sessionId,
             @PathVariable int boardId,
-            @RequestParam String algorithm) {
+            @RequestParam String algorithm,
+            @RequestParam(required = false, defaultValue = "0") long timeBudgetMs) {
         try {
-            return ResponseEntity.ok(gameService.getHint(sessionId, boardId, algorithm));
+            return ResponseEntity.ok(gameService.getHint(sessionId, boardId, algorithm, timeBudgetMs));
         } catch (IllegalStateException e) {
             return ResponseEntity.status(401).build();
         }
@@ -139,10 +180,16 @@ public class GameController {
             @RequestBody AiConfigDTO config) {
         try {
             gameService.setAiDepthForBoard(sessionId, boardId, config.getDepth());
+            gameService.setChanceLimitsForBoard(sessionId, boardId,
+                    config.getProbabilityCutoff(), config.getMaxChanceCells());
+            gameService.setSpeculativeHintsForBoard(sessionId, boardId, config.isSpeculativeHints());
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "boardId", boardId,
                     "depth", config.getDepth(),
+                    "probabilityCutoff", config.getProbabilityCutoff(),
+                    "maxChanceCells", config.getMaxChanceCells(),
+                    "speculativeHints", config.isSpeculativeHints(),
                     "message", "AI depth configured for board " + boardId
             ));
         } catch (IllegalStateException e) {
@@ -191,15 +238,94 @@ public class GameController {
             @PathVariable int boardId,
             @RequestParam(defaultValue = "10") int count,
             @RequestParam String algorithm,
-            @RequestParam(required = false, defaultValue = "BatchUser") String username) {
+            @RequestParam(required = false, defaultValue = "BatchUser") String username,
+            @RequestParam(required = false) Long seed) {
         try {
-            BatchResultDTO results = gameService.runBatchGames(sessionId, count, username, algorithm, boardId);
+            BatchResultDTO results = gameService.runBatchGames(sessionId, count, username, algorithm, boardId, seed);
             return ResponseEntity.ok(results);
         } catch (IllegalStateException e) {
             return ResponseEntity.status(401).build();
         }
     }
 
+    @PostMapping("/board/{boardId}/batch-jobs")
+    public ResponseEntity<Map<String, Object>> submitBatchJob(
+            @RequestHeader("X-Session-Id") String sessionId,
+            @PathVariable int boardId,
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam String algorithm,
+            @RequestParam(required = false, defaultValue = "BatchUser") String username,
+            @RequestParam(required = false) Long seed) {
+        try {
+            BatchJob job = batchJobService.submit(sessionId, boardId, count, username, algorithm, seed);
+            return ResponseEntity.accepted().body(Map.of(
+                    "jobId", job.getId(),
+                    "status", job.getStatus(),
+                    "totalGames", count
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(401).build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(429).body(Map.of(
+                    "success", false,
+                    "message", "Too many batch jobs queued, try again later"
+            ));
+        }
+    }
+
+    @GetMapping("/batch-jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> getBatchJobProgress(
+            @RequestHeader("X-Session-Id") String sessionId,
+            @PathVariable String jobId) {
+        try {
+            BatchJob job = batchJobService.getJob(sessionId, jobId);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(job.getProgress());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(401).build();
+        }
+    }
+
+    @GetMapping("/batch-jobs/{jobId}/result")
+    public ResponseEntity<BatchResultDTO> getBatchJobResult(
+            @RequestHeader("X-Session-Id") String sessionId,
+            @PathVariable String jobId) {
+        try {
+            BatchJob job = batchJobService.getJob(sessionId, jobId);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (job.getResult() == null) {
+                // Still queued or running, or failed without a result
+                return ResponseEntity.status(409).build();
+            }
+            return ResponseEntity.ok(job.getResult());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(401).build();
+        }
+    }
+
+    @DeleteMapping("/batch-jobs/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelBatchJob(
+            @RequestHeader("X-Session-Id") String sessionId,
+            @PathVariable String jobId) {
+        try {
+            BatchJob job = batchJobService.cancel(sessionId, jobId);
+            if (job == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "jobId", jobId,
+                    "status", job.getStatus()
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(401).build();
+        }
+    }
+
     @DeleteMapping("/session/boards/all")
     public ResponseEntity<Map<String, Object>> clearAllSessionBoards(
             @RequestHeader("X-Session-Id") String sessionId) {
@@ -217,35 +343,106 @@ public class GameController {
     // ====== LEADERBOARD (No session required) ======
 
     @GetMapping("/leaderboard")
-    public ResponseEntity<List<GameRecord>> getLeaderboard(
+    public ResponseEntity<List<LeaderboardEntryDTO>> getLeaderboard(
             @RequestParam(required = false) String gameMode) {
-        List<GameRecord> records;
         if (gameMode != null && !gameMode.isEmpty()) {
-            records = gameRecordRepository.findTopByGameMode(gameMode);
-        } else {
-            records = gameRecordRepository.findTopAllGames();
+            return ResponseEntity.ok(topByGameMode(gameMode));
+        }
+        if (leaderboardCache.isLoaded()) {
+            return ResponseEntity.ok(leaderboardCache.getOverall());
         }
-        return ResponseEntity.ok(records);
+        return ResponseEntity.ok(toEntries(gameRecordRepository.findTopAllGames()));
     }
 
     @GetMapping("/leaderboard/manual")
-    public ResponseEntity<List<GameRecord>> getManualLeaderboard() {
-        return ResponseEntity.ok(gameRecordRepository.findTopByGameMode("SINGLE_MANUAL"));
+    public ResponseEntity<List<LeaderboardEntryDTO>> getManualLeaderboard() {
+        return ResponseEntity.ok(topByGameMode("SINGLE_MANUAL"));
     }
 
     @GetMapping("/leaderboard/ai")
-    public ResponseEntity<List<GameRecord>> getAiLeaderboard() {
-        return ResponseEntity.ok(gameRecordRepository.findTopByGameMode("SINGLE_AI"));
+    public ResponseEntity<List<LeaderboardEntryDTO>> getAiLeaderboard() {
+        return ResponseEntity.ok(topByGameMode("SINGLE_AI"));
     }
 
     @GetMapping("/leaderboard/batch")
-    public ResponseEntity<List<GameRecord>> getBatchLeaderboard() {
-        return ResponseEntity.ok(gameRecordRepository.findTopByGameMode("BATCH"));
+    public ResponseEntity<List<LeaderboardEntryDTO>> getBatchLeaderboard() {
+        return ResponseEntity.ok(topByGameMode("BATCH"));
     }
 
+    // Served from the in-memory cache; the database is only queried if the cache failed to load
+    private List<LeaderboardEntryDTO> topByGameMode(String gameMode) {
+        if (leaderboardCache.isLoaded()) {
+            return leaderboardCache.getByMode(gameMode);
+        }
+        return toEntries(gameRecordRepository.findTopByGameMode(gameMode));
+    }
+
+    private static List<LeaderboardEntryDTO> toEntries(List<GameRecord> records) {
+        return records.stream().map(LeaderboardEntryDTO::from).toList();
+    }
+
+    /**
+     * A user's best games, at most limit of them. Kept for existing clients; use
+     * /leaderboard/user/{username}/games to page through all of them. When the list is cut short,
+     * the Link header points to the next page there.
+     */
+    @Deprecated
     @GetMapping("/leaderboard/user/{username}")
-    public ResponseEntity<List<GameRecord>> getUserRecords(@PathVariable String username) {
-        return ResponseEntity.ok(gameRecordRepository.findByUsernameOrderByScoreDesc(username));
+    public ResponseEntity<List<GameRecord>> getUserRecords(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "100") int limit) {
+        int pageSize = Math.max(1, Math.min(limit, 1000));
+        List<GameRecord> games = gameRecordRepository.findUserGamesAfter(
+                username, Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, pageSize);
+
+        UriComponentsBuilder pages = UriComponentsBuilder.fromPath("/api/game/leaderboard/user/{username}/games");
+        List<String> links = new ArrayList<>();
+        links.add("<" + pages.build(username) + ">; rel=\"successor-version\"");
+        if (games.size() == pageSize) {
+            GameRecord last = games.get(games.size() - 1);
+            URI next = pages.queryParam("afterMaxTile", last.getMaxTile())
+                    .queryParam("afterScore", last.getScore())
+                    .queryParam("afterId", last.getId())
+                    .build(username);
+            links.add("<" + next + ">; rel=\"next\"");
+        }
+        return ResponseEntity.ok()
+                .header("Deprecation", "true")
+                .header(HttpHeaders.LINK, String.join(", ", links))
+                .body(games);
+    }
+
+    /**
+     * One page of a user's games, best first. Pass the nextCursor values of the previous page to
+     * get the following one.
+     */
+    @GetMapping("/leaderboard/user/{username}/games")
+    public ResponseEntity<Map<String, Object>> getUserGamesPage(
+            @PathVariable String username,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Integer afterMaxTile,
+            @RequestParam(required = false) Integer afterScore,
+            @RequestParam(required = false) Long afterId) {
+        int pageSize = Math.max(1, Math.min(limit, 100));
+        boolean first = afterMaxTile == null || afterScore == null || afterId == null;
+        List<GameRecord> games = gameRecordRepository.findUserGamesAfter(username,
+                first ? Integer.MAX_VALUE : afterMaxTile,
+                first ? Integer.MAX_VALUE : afterScore,
+                first ? Long.MAX_VALUE : afterId,
+                pageSize);
+
+        Map<String, Object> page = new HashMap<>();
+        page.put("username", username);
+        page.put("games", games);
+        if (games.size() == pageSize) {
+            GameRecord last = games.get(games.size() - 1);
+            page.put("nextCursor", Map.of(
+                    "afterMaxTile", last.getMaxTile(),
+                    "afterScore", last.getScore(),
+                    "afterId", last.getId()
+            ));
+        }
+        return ResponseEntity.ok(page);
     }
 
     // ====== STATISTICS (No session required) ======
@@ -267,6 +464,10 @@ public class GameController {
     @GetMapping("/stats/by-category")
     public ResponseEntity<Map<String, Object>> getStatsByCategory(
             @RequestParam String category) {
+        if (analyticsStore.isLoaded()) {
+            return ResponseEntity.ok(analyticsStore.categoryStats(category));
+        }
+
         List<GameRecord> records = gameRecordRepository.findByCategory(category);
 
         Map<String, Object> stats = new HashMap<>();
@@ -310,21 +511,7 @@ public class GameController {
 
     @GetMapping("/stats/user/{username}")
     public ResponseEntity<Map<String, Object>> getUserStats(@PathVariable String username) {
-        List<GameRecord> records = gameRecordRepository.findByUsername(username);
-
-        int totalGames = records.size();
-        int totalScore = records.stream().mapToInt(GameRecord::getScore).sum();
-        int maxTile = records.stream().mapToInt(GameRecord::getMaxTile).max().orElse(0);
-        int totalHints = records.stream().mapToInt(GameRecord::getHintsUsed).sum();
-
-        return ResponseEntity.ok(Map.of(
-                "username", username,
-                "totalGames", totalGames,
-                "totalScore", totalScore,
-                "maxTile", maxTile,
-                "totalHintsUsed", totalHints,
-                "avgScore", totalGames > 0 ? totalScore / totalGames : 0
-        ));
+        return ResponseEntity.ok(userStatsService.getUserStats(username));
     }
 
     @GetMapping("/stats/mode-distribution")
@@ -337,8 +524,28 @@ public class GameController {
         return ResponseEntity.ok(gameRecordRepository.getTopPlayers());
     }
 
+    @GetMapping("/stats/engine")
+    public ResponseEntity<Map<String, Object>> getEngineStats() {
+        Map<String, Object> stats = new HashMap<>(aiAlgorithms.getEngineStats());
+        stats.put("speculativeHints", hintSpeculator.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    @GetMapping("/stats/persistence")
+    public ResponseEntity<Map<String, Object>> getPersistenceStats() {
+        return ResponseEntity.ok(gameRecordQueue.getStats());
+    }
+
     @GetMapping("/stats/categories")
     public ResponseEntity<List<String>> getCategories() {
         return ResponseEntity.ok(gameRecordRepository.getAllCategories());
     }
+
+    @ExceptionHandler(BoardLimitExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleBoardLimit(BoardLimitExceededException e) {
+        return ResponseEntity.status(429).body(Map.of(
+                "success", false,
+                "message", e.getMessage()
+        ));
+    }
 }
@@ -5,6 +5,12 @@ import lombok.Data;
 @Data
 public class AiConfigDTO {
     private int depth;
+    // Expectimax only: prune paths less likely than this (0 = off)
+    private double probabilityCutoff;
+    // Expectimax only: max empty cells expanded per chance node (0 = all)
+    private int maxChanceCells;
+    // Search each next hint in the background right after a move
+    private boolean speculativeHints;
 
     public int getDepth() {
         return depth;
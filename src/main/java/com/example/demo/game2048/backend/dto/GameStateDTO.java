@@ -9,6 +9,8 @@ public class GameStateDTO {
     private boolean gameOver;
     private String suggestedMove;
     private String username;
+    // Depth of the AI search behind suggestedMove; null when no search ran
+    private Integer searchDepth;
 
     public GameStateDTO(int[][] board, int score, boolean gameOver, String suggestedMove, String username) {
         this.board = board;
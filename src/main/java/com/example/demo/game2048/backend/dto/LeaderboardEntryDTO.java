@@ -0,0 +1,20 @@
+package com.example.demo.game2048.backend.dto;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+
+import java.time.LocalDateTime;
+
+public record LeaderboardEntryDTO(
+        String username,
+        String gameMode,
+        int score,
+        int maxTile,
+        int hintsUsed,
+        LocalDateTime createdAt,
+        Long id
+) {
+    public static LeaderboardEntryDTO from(GameRecord record) {
+        return new LeaderboardEntryDTO(record.getUsername(), record.getGameMode(), record.getScore(),
+                record.getMaxTile(), record.getHintsUsed(), record.getCreatedAt(), record.getId());
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo.game2048.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MoveSequenceDTO {
+    // Applied in order: UP, DOWN, LEFT or RIGHT
+    private List<String> directions;
+    // AI moves played after the directions (0 = none)
+    private int aiMoves;
+    private String algorithm;
+    // Per AI move; 0 = fixed-depth search
+    private long timeBudgetMs;
+}
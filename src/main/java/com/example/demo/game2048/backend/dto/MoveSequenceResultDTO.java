@@ -0,0 +1,10 @@
+package com.example.demo.game2048.backend.dto;
+
+import java.util.List;
+
+public record MoveSequenceResultDTO(
+        GameStateDTO state,        // after the last move
+        List<String> moves,        // every move processed, AI moves included
+        List<Integer> scoreDeltas, // score gained by each move, 0 when it did not change the board
+        int movesApplied           // moves that changed the board
+) {}
@@ -0,0 +1,24 @@
+package com.example.demo.game2048.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marks a one-off startup migration as done, so it is not repeated on the next start.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "completed_migrations")
+public class CompletedMigration {
+    @Id
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime completedAt;
+}
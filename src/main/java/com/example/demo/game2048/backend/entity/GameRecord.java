@@ -13,7 +13,12 @@ import java.time.LocalDateTime;
 @Table(name = "game_records", indexes = {
         @Index(name = "idx_username", columnList = "username"),
         @Index(name = "idx_game_mode", columnList = "gameMode"),
-        @Index(name = "idx_max_tile_score", columnList = "maxTile,score")
+        @Index(name = "idx_max_tile_score", columnList = "maxTile,score"),
+        @Index(name = "idx_game_mode_max_tile_score", columnList = "gameMode,maxTile,score"),
+        @Index(name = "idx_category_max_tile_score", columnList = "category,maxTile,score"),
+        @Index(name = "idx_origin_category", columnList = "origin,category"),
+        @Index(name = "idx_origin_created_at", columnList = "origin,createdAt"),
+        @Index(name = "idx_username_max_tile_score", columnList = "username,maxTile,score")
 })
 public class GameRecord {
     @Id
@@ -26,6 +31,11 @@ public class GameRecord {
     @Column(nullable = false)
     private String gameMode; // SINGLE_MANUAL, SINGLE_AI, BATCH
 
+    // Derived from gameMode: SINGLE_EXPECTIMAX -> origin SINGLE, category EXPECTIMAX
+    private String origin;
+
+    private String category;
+
     @Column(nullable = false)
     private int score;
 
@@ -43,6 +53,26 @@ public class GameRecord {
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
+        origin = originOf(gameMode);
+        category = categoryOf(gameMode);
+    }
+
+    /**
+     * SINGLE or BATCH for "SINGLE_..." / "BATCH_..." modes, otherwise the mode itself.
+     */
+    public static String originOf(String gameMode) {
+        if (gameMode.startsWith("SINGLE_")) return "SINGLE";
+        if (gameMode.startsWith("BATCH_")) return "BATCH";
+        return gameMode;
+    }
+
+    /**
+     * The part after the origin prefix (MANUAL, AI, EXPECTIMAX, ...), otherwise the mode itself.
+     */
+    public static String categoryOf(String gameMode) {
+        if (gameMode.startsWith("SINGLE_")) return gameMode.substring("SINGLE_".length());
+        if (gameMode.startsWith("BATCH_")) return gameMode.substring("BATCH_".length());
+        return gameMode;
     }
     public void setUsername(String username) {
         this.username = username;
@@ -0,0 +1,62 @@
+package com.example.demo.game2048.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Rolled-up game_records: one row per day, user, game mode and max tile. The rows of one
+ * (day, username, gameMode) together form that day's max-tile histogram.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "game_record_summaries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_summary_key",
+                columnNames = {"summaryDay", "username", "gameMode", "maxTile"}),
+        indexes = {
+                @Index(name = "idx_summary_category_max_tile", columnList = "category,maxTile"),
+                @Index(name = "idx_summary_game_mode_max_tile", columnList = "gameMode,maxTile"),
+                @Index(name = "idx_summary_username", columnList = "username")
+        })
+public class GameRecordSummary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private LocalDate summaryDay;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String gameMode;
+
+    private String origin;
+
+    private String category;
+
+    @Column(nullable = false)
+    private int maxTile;
+
+    @Column(nullable = false)
+    private long gameCount;
+
+    @Column(nullable = false)
+    private long scoreSum;
+
+    // Sum of score^2, for variance
+    @Column(nullable = false)
+    private double scoreSumSquares;
+
+    @Column(nullable = false)
+    private int scoreMax;
+
+    @Column(nullable = false)
+    private long hintsSum;
+}
@@ -0,0 +1,33 @@
+package com.example.demo.game2048.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Per game mode part of UserStats.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "user_mode_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_mode", columnNames = {"username", "gameMode"}))
+public class UserModeStats {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private String gameMode;
+
+    @Column(nullable = false)
+    private long games;
+
+    @Column(nullable = false)
+    private int bestTile;
+}
@@ -0,0 +1,34 @@
+package com.example.demo.game2048.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running totals of one user's games, updated together with every game_records insert.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "user_stats")
+public class UserStats {
+    @Id
+    private String username;
+
+    @Column(nullable = false)
+    private long totalGames;
+
+    @Column(nullable = false)
+    private long totalScore;
+
+    @Column(nullable = false)
+    private int bestTile;
+
+    @Column(nullable = false)
+    private int bestScore;
+
+    @Column(nullable = false)
+    private long hintsUsed;
+}
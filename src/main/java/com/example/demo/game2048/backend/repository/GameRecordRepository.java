@@ -20,47 +20,47 @@ public interface GameRecordRepository extends JpaRepository<GameRecord, Long> {
     @Query(value = "SELECT * FROM game_records WHERE game_mode = :gameMode ORDER BY max_tile DESC, score DESC LIMIT 10", nativeQuery = true)
     List<GameRecord> findTopByGameMode(@Param("gameMode") String gameMode);
 
-    // Lấy tất cả records của một user, xếp theo maxTile và score giảm dần
-    @Query(value = "SELECT * FROM game_records WHERE username = :username ORDER BY max_tile DESC, score DESC", nativeQuery = true)
-    List<GameRecord> findByUsernameOrderByScoreDesc(@Param("username") String username);
-
-    // Lấy tất cả records của một user (không sort)
-    List<GameRecord> findByUsername(String username);
+    // Keyset page of a user's games after (maxTile, score, id), using idx_username_max_tile_score
+    @Query(value = "SELECT * FROM game_records WHERE username = :username " +
+            "AND (max_tile, score, id) < (:maxTile, :score, :id) " +
+            "ORDER BY max_tile DESC, score DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<GameRecord> findUserGamesAfter(@Param("username") String username, @Param("maxTile") int maxTile,
+                                        @Param("score") int score, @Param("id") long id, @Param("limit") int limit);
 
     // Thống kê tổng hợp Max-Tile (tất cả mode)
-    @Query("SELECT r.maxTile as tile, COUNT(r) as count FROM GameRecord r GROUP BY r.maxTile ORDER BY r.maxTile DESC")
+    // Raw rows and rolled-up summaries together
+    @Query(value = "SELECT tile, SUM(cnt) as count FROM (" +
+            "SELECT max_tile as tile, COUNT(*) as cnt FROM game_records GROUP BY max_tile " +
+            "UNION ALL SELECT max_tile, SUM(game_count) FROM game_record_summaries GROUP BY max_tile" +
+            ") t GROUP BY tile ORDER BY tile DESC", nativeQuery = true)
     List<Map<String, Object>> getGlobalMaxTileStats();
 
     // Thống kê Max-Tile theo mode
-    @Query("SELECT r.maxTile as tile, COUNT(r) as count FROM GameRecord r WHERE r.gameMode = :gameMode GROUP BY r.maxTile ORDER BY r.maxTile DESC")
+    @Query(value = "SELECT tile, SUM(cnt) as count FROM (" +
+            "SELECT max_tile as tile, COUNT(*) as cnt FROM game_records WHERE game_mode = :gameMode GROUP BY max_tile " +
+            "UNION ALL SELECT max_tile, SUM(game_count) FROM game_record_summaries WHERE game_mode = :gameMode GROUP BY max_tile" +
+            ") t GROUP BY tile ORDER BY tile DESC", nativeQuery = true)
     List<Map<String, Object>> getMaxTileStatsByMode(@Param("gameMode") String gameMode);
 
     // Thống kê số lượng games theo mode
-    @Query("SELECT r.gameMode as mode, COUNT(r) as count FROM GameRecord r GROUP BY r.gameMode")
+    @Query(value = "SELECT mode, SUM(cnt) as count FROM (" +
+            "SELECT game_mode as mode, COUNT(*) as cnt FROM game_records GROUP BY game_mode " +
+            "UNION ALL SELECT game_mode, SUM(game_count) FROM game_record_summaries GROUP BY game_mode" +
+            ") t GROUP BY mode", nativeQuery = true)
     List<Map<String, Object>> getGameModeStats();
 
     // Top players (dựa trên maxTile cao nhất)
-    @Query(value = "SELECT username, MAX(max_tile) as maxTile, MAX(score) as bestScore, COUNT(*) as gamesPlayed " +
-            "FROM game_records GROUP BY username ORDER BY MAX(max_tile) DESC, MAX(score) DESC LIMIT 10", nativeQuery = true)
+    @Query(value = "SELECT username, MAX(max_tile) as maxTile, MAX(score) as bestScore, SUM(games) as gamesPlayed FROM (" +
+            "SELECT username, MAX(max_tile) as max_tile, MAX(score) as score, COUNT(*) as games FROM game_records GROUP BY username " +
+            "UNION ALL SELECT username, MAX(max_tile), MAX(score_max), SUM(game_count) FROM game_record_summaries GROUP BY username" +
+            ") t GROUP BY username ORDER BY MAX(max_tile) DESC, MAX(score) DESC LIMIT 10", nativeQuery = true)
     List<Map<String, Object>> getTopPlayers();
 
-    
-    @Query(value = "SELECT * FROM game_records WHERE " +
-            "CASE " +
-            "  WHEN :category = 'MANUAL' THEN game_mode = 'SINGLE_MANUAL' " +
-            "  ELSE game_mode LIKE CONCAT('%_', :category) " +
-            "END", nativeQuery = true)
+    // Uses idx_category_max_tile_score; category is filled in from gameMode on insert
+    @Query(value = "SELECT * FROM game_records WHERE category = :category", nativeQuery = true)
     List<GameRecord> findByCategory(@Param("category") String category);
 
- 
-    @Query(value = "SELECT DISTINCT " +
-            "CASE " +
-            "  WHEN game_mode = 'SINGLE_MANUAL' THEN 'MANUAL' " +
-            "  WHEN game_mode LIKE 'SINGLE_%' THEN SUBSTRING(game_mode, 8) " +
-            "  WHEN game_mode LIKE 'BATCH_%' THEN SUBSTRING(game_mode, 7) " +
-            "  ELSE game_mode " +
-            "END as category " +
-            "FROM game_records " +
-            "ORDER BY category", nativeQuery = true)
+    @Query(value = "SELECT category FROM game_records WHERE category IS NOT NULL " +
+            "UNION SELECT category FROM game_record_summaries WHERE category IS NOT NULL ORDER BY category", nativeQuery = true)
     List<String> getAllCategories();
 }
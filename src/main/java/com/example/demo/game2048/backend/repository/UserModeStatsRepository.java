@@ -0,0 +1,13 @@
+package com.example.demo.game2048.backend.repository;
+
+import com.example.demo.game2048.backend.entity.UserModeStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface UserModeStatsRepository extends JpaRepository<UserModeStats, Long> {
+
+    List<UserModeStats> findByUsername(String username);
+}
@@ -0,0 +1,9 @@
+package com.example.demo.game2048.backend.repository;
+
+import com.example.demo.game2048.backend.entity.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, String> {
+}
@@ -0,0 +1,29 @@
+package com.example.demo.game2048.backend.scheduler;
+
+import com.example.demo.game2048.backend.service.BatchJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@Component
+public class BatchJobCleanupScheduler {
+
+    @Autowired
+    private BatchJobService batchJobService;
+
+    /**
+     * Run every 10 minutes to drop finished batch jobs past their retention
+     */
+    @Scheduled(fixedRate = 600000)
+    public void purgeFinishedJobs() {
+        int removed = batchJobService.purgeFinishedJobs();
+
+        if (removed > 0) {
+            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+            System.out.println("[" + timestamp + "] Batch Job Cleanup: Removed " + removed + " finished jobs");
+        }
+    }
+}
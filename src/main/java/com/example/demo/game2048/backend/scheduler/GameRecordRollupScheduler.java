@@ -0,0 +1,38 @@
+package com.example.demo.game2048.backend.scheduler;
+
+import com.example.demo.game2048.backend.service.GameRecordRollup;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+@Component
+public class GameRecordRollupScheduler {
+
+    @Autowired
+    private GameRecordRollup gameRecordRollup;
+
+    @Value("${game.rollup.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Roll up old batch records once a day (03:30 by default)
+     */
+    @Scheduled(cron = "${game.rollup.cron:0 30 3 * * *}")
+    public void rollupOldRecords() {
+        if (!enabled) return;
+
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        try {
+            long removed = gameRecordRollup.rollup();
+            if (removed > 0) {
+                System.out.println("[" + timestamp + "] Record Rollup: Summarized and removed " + removed + " records");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("[" + timestamp + "] Record Rollup failed: " + e.getMessage());
+        }
+    }
+}
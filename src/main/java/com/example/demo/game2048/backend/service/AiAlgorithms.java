@@ -1,101 +1,356 @@
 package com.example.demo.game2048.backend.service;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongToDoubleFunction;
 
 @Component
 public class AiAlgorithms {
 
-    private int searchDepth = 6;
+    private static final int[] MOVES = {Bitboard.UP, Bitboard.DOWN, Bitboard.LEFT, Bitboard.RIGHT};
 
-    public void setDepth(int depth) {
-        this.searchDepth = Math.max(1, Math.min(depth, 6));
-    }
+    // Deepest iteration a time-budgeted search will attempt
+    private static final int MAX_TIMED_DEPTH = 8;
+
+    @Autowired
+    private TranspositionTable transpositionTable;
+
+    @Autowired
+    private MoveDecisionCache decisionCache;
+
+    @Autowired
+    private ForkJoinPool aiSearchPool;
+
+    // Searches running right now, so identical requests can wait for them
+    private final Map<SearchKey, CompletableFuture<SearchResult>> inFlightSearches = new ConcurrentHashMap<>();
+    private final LongAdder leaderSearches = new LongAdder();
+    private final LongAdder coalescedSearches = new LongAdder();
+
+    @Value("${game.ai.parallel.enabled:true}")
+    private boolean parallelEnabled;
 
-    public int getDepth() {
-        return this.searchDepth;
+    // Subtrees with less remaining depth than this are searched sequentially
+    @Value("${game.ai.parallel.min-depth:3}")
+    private int parallelMinDepth;
+
+    /**
+     * Build the move and heuristic tables at startup rather than inside the first (time-budgeted) request.
+     */
+    @PostConstruct
+    void warmUp() {
+        HeuristicEvaluator.evaluate(Bitboard.move(0L, Bitboard.LEFT));
     }
 
     /* ================= ALGORITHM SELECTOR ================= */
 
-    public String bestMove(int[][] board, String algorithm) {
-        return switch (algorithm.toUpperCase()) {
-            case "EXPECTIMAX" -> expectimaxMove(board);
+    // Every algorithm the selector knows; anything else is searched with expectimax
+    public static final List<String> ALGORITHMS = List.of("EXPECTIMAX", "GREEDY", "BFS", "DLS", "IDS", "MINIMAX");
+
+    /**
+     * Index in ALGORITHMS of the algorithm a request for this name runs, or -1 for null.
+     */
+    public static int algorithmIndex(String algorithm) {
+        if (algorithm == null) return -1;
+        int index = ALGORITHMS.indexOf(algorithm.toUpperCase(Locale.ROOT));
+        return index >= 0 ? index : 0;
+    }
+
+    /**
+     * Stateless entry point: all search parameters come from the context, so any number of
+     * searches may run concurrently, from platform or virtual threads.
+     */
+    public String bestMove(long board, SearchContext ctx) {
+        return search(board, ctx).move();
+    }
+
+    /**
+     * Fixed-depth decisions are answered from the decision cache when the same position was
+     * searched with the same settings before; time-budgeted searches depend on the clock and always run.
+     * Identical searches that arrive while one is running wait for it instead of starting their own.
+     */
+    public SearchResult search(long board, SearchContext ctx) {
+        boolean timed = ctx.getTimeBudgetMs() > 0 && supportsDeepening(ctx.getAlgorithm());
+        if (!timed) {
+            SearchResult cached = decisionCache.get(board, ctx);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        boolean parallel = ctx.isParallel() && parallelEnabled && aiSearchPool != null;
+        SearchKey key = new SearchKey(board, ctx.getAlgorithm(), ctx.getDepth(), ctx.getProbabilityCutoff(),
+                ctx.getMaxChanceCells(), timed ? ctx.getTimeBudgetMs() : 0, parallel);
+        CompletableFuture<SearchResult> flight = new CompletableFuture<>();
+        // A sequential search may also wait for a parallel one, never the other way round
+        CompletableFuture<SearchResult> running = parallel ? null : inFlightSearches.get(key.asParallel());
+        if (running == null) {
+            running = inFlightSearches.putIfAbsent(key, flight);
+        }
+        if (running != null) {
+            coalescedSearches.increment();
+            try {
+                return awaitSearch(running);
+            } catch (SearchCancelledException e) {
+                return search(board, ctx); // the search we joined was a cancelled speculation
+            }
+        }
+
+        try {
+            SearchResult result = timed ? timedSearch(board, ctx) : fixedDepthSearch(board, ctx);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightSearches.remove(key, flight);
+        }
+    }
+
+    private SearchResult fixedDepthSearch(long board, SearchContext ctx) {
+        transpositionTable.newSearch();
+        int depth = ctx.getAlgorithm().equals("GREEDY") ? 1 : ctx.getDepth();
+        SearchResult result = new SearchResult(fixedDepthMove(board, ctx), depth);
+        decisionCache.put(board, ctx, result);
+        leaderSearches.increment();
+        return result;
+    }
+
+    private String fixedDepthMove(long board, SearchContext ctx) {
+        return switch (ctx.getAlgorithm()) {
+            case "EXPECTIMAX" -> expectimaxMove(board, ctx);
             case "GREEDY" -> greedyMove(board);
-            case "BFS" -> bfsMove(board);
-            case "DLS" -> dlsMove(board);
-            case "IDS" -> idsMove(board);
-            case "MINIMAX" -> minimaxMove(board);
-            default -> expectimaxMove(board);
+            case "BFS" -> bfsMove(board, ctx);
+            case "DLS" -> dlsMove(board, ctx);
+            case "IDS" -> idsMove(board, ctx);
+            case "MINIMAX" -> minimaxMove(board, ctx);
+            default -> expectimaxMove(board, ctx);
         };
     }
 
-    /* ================= EXPECTIMAX ================= */
+    /* ================= REQUEST COALESCING ================= */
+
+    // Everything a search result depends on, plus whether it runs on the fork/join pool, so a
+    // live request never waits on a slower sequential (speculative or batch) search; the time
+    // budget is 0 for fixed-depth searches
+    private record SearchKey(long board, String algorithm, int depth, double probabilityCutoff,
+                             int maxChanceCells, long timeBudgetMs, boolean parallel) {
+        SearchKey asParallel() {
+            return new SearchKey(board, algorithm, depth, probabilityCutoff, maxChanceCells, timeBudgetMs, true);
+        }
+    }
+
+    // Waits without being interruptible, like the search it is standing in for
+    private static SearchResult awaitSearch(CompletableFuture<SearchResult> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            if (e.getCause() instanceof Error cause) throw cause;
+            throw e;
+        }
+    }
+
+    /* ================= TIME-BUDGETED ITERATIVE DEEPENING ================= */
+
+    private static boolean supportsDeepening(String algorithm) {
+        return switch (algorithm) {
+            case "GREEDY", "BFS" -> false;
+            default -> true;
+        };
+    }
 
-    private String expectimaxMove(int[][] board) {
-        String[] moves = {"UP", "DOWN", "LEFT", "RIGHT"};
+    /**
+     * Deepens one ply at a time until the budget runs out and answers from the deepest completed
+     * iteration. Unlike idsMove, each iteration searches the root moves best-first using the scores
+     * of the previous one, and the transposition table carries subtree values across iterations.
+     * Depth 1 always completes so there is always an answer.
+     */
+    private SearchResult timedSearch(long board, SearchContext ctx) {
+        transpositionTable.newSearch();
+        leaderSearches.increment();
+        long deadline = System.nanoTime() + ctx.getTimeBudgetMs() * 1_000_000L;
+        int[] order = MOVES.clone();
         String bestMove = "UP";
-        double bestScore = Double.NEGATIVE_INFINITY;
+        int reached = 0;
+
+        try {
+            for (int depth = 1; depth <= MAX_TIMED_DEPTH; depth++) {
+                ctx.deadlineNanos = depth == 1 ? 0 : deadline;
+                double[] scores;
+                try {
+                    scores = ctx.getAlgorithm().equals("MINIMAX")
+                            ? alphaBetaRoot(board, ctx, order, depth - 1)
+                            : scoreRootMoves(board, ctx, order, rootSearch(ctx, depth - 1));
+                } catch (SearchTimeoutException e) {
+                    break;
+                }
+                bestMove = pickBest(scores);
+                reached = depth;
+                orderByScore(order, scores);
 
-        for (String move : moves) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (!result.moved()) continue;
+                if (scores[order[1]] == Double.NEGATIVE_INFINITY || System.nanoTime() - deadline > 0) {
+                    break; // a single legal move needs no deeper look
+                }
+            }
+        } finally {
+            ctx.deadlineNanos = 0;
+        }
+        return new SearchResult(bestMove, reached);
+    }
 
-            double score = expectimax(result.board(), searchDepth - 1, false);
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = move;
+    private LongToDoubleFunction rootSearch(SearchContext ctx, int depth) {
+        return switch (ctx.getAlgorithm()) {
+            case "DLS", "IDS" -> next -> dls(next, depth, ctx);
+            default -> ctx.hasChanceLimits()
+                    ? next -> expectimaxLimited(next, depth, false, 1.0, ctx)
+                    : next -> expectimax(next, depth, false, ctx);
+        };
+    }
+
+    private static void orderByScore(int[] order, double[] scores) {
+        for (int i = 1; i < order.length; i++) {
+            int move = order[i];
+            int j = i - 1;
+            while (j >= 0 && scores[order[j]] < scores[move]) {
+                order[j + 1] = order[j];
+                j--;
             }
+            order[j + 1] = move;
         }
-        return bestMove;
     }
 
-    private double expectimax(int[][] board, int depth, boolean playerTurn) {
-        if (depth == 0 || GameLogic.isGameOver(board)) {
+    /* ================= EXPECTIMAX ================= */
+
+    private String expectimaxMove(long board, SearchContext ctx) {
+        int depth = ctx.getDepth() - 1;
+        boolean limited = ctx.hasChanceLimits();
+        return pickBest(scoreRootMoves(board, ctx, MOVES, next -> limited
+                ? expectimaxLimited(next, depth, false, 1.0, ctx)
+                : expectimax(next, depth, false, ctx)));
+    }
+
+    private double expectimax(long board, int depth, boolean playerTurn, SearchContext ctx) {
+        if (depth == 0 || Bitboard.isGameOver(board)) {
             return evaluateBoard(board);
         }
+        if (depth > 1) ctx.checkDeadline();
+
+        int nodeType = playerTurn ? TranspositionTable.EXPECTIMAX_MAX : TranspositionTable.EXPECTIMAX_CHANCE;
+        double cached = transpositionTable.probe(board, depth, nodeType);
+        if (!Double.isNaN(cached)) return cached;
 
+        double value;
         if (playerTurn) {
             double best = Double.NEGATIVE_INFINITY;
-            for (String m : new String[]{"UP","DOWN","LEFT","RIGHT"}) {
-                GameLogic.BoardMoveResult r = applyMove(board, m);
-                if (r.moved())
-                    best = Math.max(best, expectimax(r.board(), depth - 1, false));
+            for (int m : MOVES) {
+                long next = Bitboard.move(board, m);
+                if (next != board)
+                    best = Math.max(best, expectimax(next, depth - 1, false, ctx));
             }
-            return best == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : best;
+            value = best == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : best;
         } else {
-            List<int[]> empty = GameLogic.getEmptyCells(board);
-            if (empty.isEmpty()) return evaluateBoard(board);
+            int empty = Bitboard.emptyMask(board);
+            if (empty == 0) return evaluateBoard(board);
 
             double sum = 0;
-            for (int[] c : empty) {
-                int[][] b2 = copy(board);
-                b2[c[0]][c[1]] = 2;
-                sum += 0.9 * expectimax(b2, depth - 1, true);
-
-                int[][] b4 = copy(board);
-                b4[c[0]][c[1]] = 4;
-                sum += 0.1 * expectimax(b4, depth - 1, true);
+            if (shouldFork(depth, ctx)) {
+                List<ValueTask> tasks = new ArrayList<>();
+                for (int m = empty; m != 0; m &= m - 1) {
+                    int cell = Integer.numberOfTrailingZeros(m);
+                    tasks.add(new ValueTask(() -> 0.9 * expectimax(Bitboard.withExponent(board, cell, 1), depth - 1, true, ctx)
+                            + 0.1 * expectimax(Bitboard.withExponent(board, cell, 2), depth - 1, true, ctx)));
+                }
+                sum = sumAll(tasks);
+            } else {
+                for (int m = empty; m != 0; m &= m - 1) {
+                    int cell = Integer.numberOfTrailingZeros(m);
+                    sum += 0.9 * expectimax(Bitboard.withExponent(board, cell, 1), depth - 1, true, ctx)
+                            + 0.1 * expectimax(Bitboard.withExponent(board, cell, 2), depth - 1, true, ctx);
+                }
+            }
+            value = sum / Integer.bitCount(empty);
+        }
+        transpositionTable.store(board, depth, nodeType, value);
+        return value;
+    }
+
+    // Values depend on the path probability, so this variant bypasses the transposition table
+    private double expectimaxLimited(long board, int depth, boolean playerTurn, double probability, SearchContext ctx) {
+        if (depth == 0 || probability < ctx.getProbabilityCutoff() || Bitboard.isGameOver(board)) {
+            return evaluateBoard(board);
+        }
+        if (depth > 1) ctx.checkDeadline();
+
+        if (playerTurn) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (int m : MOVES) {
+                long next = Bitboard.move(board, m);
+                if (next != board)
+                    best = Math.max(best, expectimaxLimited(next, depth - 1, false, probability, ctx));
             }
-            return sum / empty.size();
+            return best == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : best;
+        }
+
+        int empty = Bitboard.emptyMask(board);
+        if (empty == 0) return evaluateBoard(board);
+
+        int emptyCount = Integer.bitCount(empty);
+        int visited = ctx.getMaxChanceCells() > 0 ? Math.min(emptyCount, ctx.getMaxChanceCells()) : emptyCount;
+        double p2 = probability * 0.9 / visited;
+        double p4 = probability * 0.1 / visited;
+
+        List<ValueTask> tasks = shouldFork(depth, ctx) ? new ArrayList<>() : null;
+        double sum = 0;
+        for (int i = 0; i < visited; i++) {
+            // Evenly spaced, deterministic sample of the empty cells
+            int cell = nthSetBit(empty, (int) ((long) i * emptyCount / visited));
+            DoubleSupplier child = () -> 0.9 * expectimaxLimited(Bitboard.withExponent(board, cell, 1), depth - 1, true, p2, ctx)
+                    + 0.1 * expectimaxLimited(Bitboard.withExponent(board, cell, 2), depth - 1, true, p4, ctx);
+            if (tasks != null) {
+                tasks.add(new ValueTask(child));
+            } else {
+                sum += child.getAsDouble();
+            }
+        }
+        if (tasks != null) {
+            sum = sumAll(tasks);
         }
+        return sum / visited;
+    }
+
+    private static int nthSetBit(int mask, int n) {
+        for (int i = 0; i < n; i++) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
     }
 
     /* ================= GREEDY ================= */
 
-    private String greedyMove(int[][] board) {
-        String[] moves = {"UP", "DOWN", "LEFT", "RIGHT"};
+    private String greedyMove(long board) {
         String bestMove = "UP";
         double bestScore = Double.NEGATIVE_INFINITY;
 
-        for (String move : moves) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (!result.moved()) continue;
+        for (int move : MOVES) {
+            long next = Bitboard.move(board, move);
+            if (next == board) continue;
 
-            double score = evaluateBoard(result.board()) + result.score();
+            double score = evaluateBoard(next) + Bitboard.moveScore(board, move);
             if (score > bestScore) {
                 bestScore = score;
-                bestMove = move;
+                bestMove = Bitboard.MOVE_NAMES[move];
             }
         }
         return bestMove;
@@ -103,36 +358,49 @@ public class AiAlgorithms {
 
     /* ================= BFS ================= */
 
-    private String bfsMove(int[][] board) {
-        String[] moves = {"UP", "DOWN", "LEFT", "RIGHT"};
-        Map<String, Double> moveScores = new HashMap<>();
-
-        Queue<SearchNode> queue = new LinkedList<>();
-
-        for (String move : moves) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (result.moved()) {
-                queue.offer(new SearchNode(result.board(), move, 0));
+    /**
+     * Expands every move sequence level by level and scores each first move by the best board its
+     * sequences reach at full depth. Paths that reach the same board on the same level are merged:
+     * the frontier holds each board once, with a bitmask of the first moves that lead to it.
+     */
+    private String bfsMove(long board, SearchContext ctx) {
+        double[] scores = ctx.rootScores;
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+        BoardFrontier frontier = new BoardFrontier();
+        for (int move : MOVES) {
+            long next = Bitboard.move(board, move);
+            if (next != board) {
+                frontier.offer(next, 1 << move);
             }
         }
 
-        while (!queue.isEmpty()) {
-            SearchNode node = queue.poll();
-
-            if (node.depth >= searchDepth) {
-                double score = evaluateBoard(node.board);
-                moveScores.merge(node.firstMove, score, Math::max);
-                continue;
+        for (int level = 0; level < ctx.getDepth() && !frontier.isEmpty(); level++) {
+            frontier.startLevel();
+            for (int n = frontier.levelSize(); n > 0; n--) {
+                long current = frontier.peekBoard();
+                int firstMoves = frontier.poll();
+                for (int move : MOVES) {
+                    long next = Bitboard.move(current, move);
+                    if (next != current) {
+                        frontier.offer(next, firstMoves);
+                    }
+                }
             }
+        }
 
-            for (String move : moves) {
-                GameLogic.BoardMoveResult result = applyMove(node.board, move);
-                if (result.moved()) {
-                    queue.offer(new SearchNode(result.board(), node.firstMove, node.depth + 1));
-                }
+        while (!frontier.isEmpty()) {
+            double score = evaluateBoard(frontier.peekBoard());
+            for (int m = frontier.poll(); m != 0; m &= m - 1) {
+                int move = Integer.numberOfTrailingZeros(m);
+                scores[move] = Math.max(scores[move], score);
             }
         }
 
+        // Ties resolve as they always have for BFS, in the map's iteration order
+        Map<String, Double> moveScores = new HashMap<>();
+        for (int move : MOVES) {
+            if (scores[move] > Double.NEGATIVE_INFINITY) moveScores.put(Bitboard.MOVE_NAMES[move], scores[move]);
+        }
         return moveScores.entrySet().stream()
                 .max(Map.Entry.comparingByValue())
                 .map(Map.Entry::getKey)
@@ -141,46 +409,39 @@ public class AiAlgorithms {
 
     /* ================= DLS ================= */
 
-    private String dlsMove(int[][] board) {
-        String[] moves = {"UP", "DOWN", "LEFT", "RIGHT"};
-        String bestMove = "UP";
-        double bestScore = Double.NEGATIVE_INFINITY;
-
-        for (String move : moves) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (!result.moved()) continue;
-
-            double score = dls(result.board(), searchDepth - 1);
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = move;
-            }
-        }
-        return bestMove;
+    private String dlsMove(long board, SearchContext ctx) {
+        int depth = ctx.getDepth() - 1;
+        return pickBest(scoreRootMoves(board, ctx, MOVES, next -> dls(next, depth, ctx)));
     }
 
-    private double dls(int[][] board, int depth) {
-        if (depth == 0 || GameLogic.isGameOver(board)) {
+    private double dls(long board, int depth, SearchContext ctx) {
+        if (depth == 0 || Bitboard.isGameOver(board)) {
             return evaluateBoard(board);
         }
+        if (depth > 1) ctx.checkDeadline();
+
+        double cached = transpositionTable.probe(board, depth, TranspositionTable.DLS);
+        if (!Double.isNaN(cached)) return cached;
 
         double maxScore = Double.NEGATIVE_INFINITY;
-        for (String move : new String[]{"UP", "DOWN", "LEFT", "RIGHT"}) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (result.moved()) {
-                maxScore = Math.max(maxScore, dls(result.board(), depth - 1));
+        for (int move : MOVES) {
+            long next = Bitboard.move(board, move);
+            if (next != board) {
+                maxScore = Math.max(maxScore, dls(next, depth - 1, ctx));
             }
         }
-        return maxScore == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : maxScore;
+        double value = maxScore == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : maxScore;
+        transpositionTable.store(board, depth, TranspositionTable.DLS, value);
+        return value;
     }
 
     /* ================= IDS (Iterative Deepening Search) ================= */
 
-    private String idsMove(int[][] board) {
+    private String idsMove(long board, SearchContext ctx) {
         String bestMove = "UP";
 
-        for (int depth = 1; depth <= searchDepth; depth++) {
-            String move = dlsMove(board, depth);
+        for (int depth = 1; depth <= ctx.getDepth(); depth++) {
+            String move = dlsMove(board, depth, ctx);
             if (move != null) {
                 bestMove = move;
             }
@@ -188,19 +449,18 @@ public class AiAlgorithms {
         return bestMove;
     }
 
-    private String dlsMove(int[][] board, int maxDepth) {
-        String[] moves = {"UP", "DOWN", "LEFT", "RIGHT"};
+    private String dlsMove(long board, int maxDepth, SearchContext ctx) {
         String bestMove = null;
         double bestScore = Double.NEGATIVE_INFINITY;
 
-        for (String move : moves) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (!result.moved()) continue;
+        for (int move : MOVES) {
+            long next = Bitboard.move(board, move);
+            if (next == board) continue;
 
-            double score = dls(result.board(), maxDepth - 1);
+            double score = dls(next, maxDepth - 1, ctx);
             if (score > bestScore) {
                 bestScore = score;
-                bestMove = move;
+                bestMove = Bitboard.MOVE_NAMES[move];
             }
         }
         return bestMove;
@@ -208,235 +468,418 @@ public class AiAlgorithms {
 
     /* ================= MINIMAX ================= */
 
-    private String minimaxMove(int[][] board) {
-        String[] moves = {"UP", "DOWN", "LEFT", "RIGHT"};
-        String bestMove = "UP";
-        double bestScore = Double.NEGATIVE_INFINITY;
-
-        for (String move : moves) {
-            GameLogic.BoardMoveResult result = applyMove(board, move);
-            if (!result.moved()) continue;
+    private String minimaxMove(long board, SearchContext ctx) {
+        return pickBest(alphaBetaRoot(board, ctx, MOVES, ctx.getDepth() - 1));
+    }
 
-            double score = minimax(result.board(), searchDepth - 1, false);
-            if (score > bestScore) {
-                bestScore = score;
-                bestMove = move;
+    /**
+     * Scores the root moves in the given order with alpha-beta windows. Only the best move's score
+     * is exact; the others are bounds low enough that pickBest still returns what plain minimax
+     * picks: the first move in MOVES order with the highest value. A move that precedes the current
+     * best in MOVES order is searched against a window just below the best score, so a tie is
+     * recognized and wins as it does in minimax.
+     *
+     * With parallel search the first move is searched alone and the rest then run as fork/join
+     * tasks, each against the first move's window and with a fork of the context. Their windows
+     * are wider than sequential ones, so a task may prune less, but every move that fails low
+     * still scores no higher than the first, and pickBest returns the same move.
+     */
+    private double[] alphaBetaRoot(long board, SearchContext ctx, int[] order, int depth) {
+        double[] scores = ctx.rootScores;
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
+        boolean parallel = ctx.isParallel() && parallelEnabled && aiSearchPool != null;
+
+        int best = -1;
+        List<ValueTask> tasks = new ArrayList<>();
+        int[] taskMoves = new int[MOVES.length];
+        for (int move : order) {
+            long next = Bitboard.move(board, move);
+            if (next == board) continue;
+
+            double alpha = best < 0 ? Double.NEGATIVE_INFINITY
+                    : move < best ? Math.nextDown(scores[best]) : scores[best];
+            if (parallel && best >= 0) {
+                SearchContext fork = ctx.fork();
+                taskMoves[tasks.size()] = move;
+                tasks.add(new ValueTask(() -> alphaBeta(next, depth, alpha, Double.POSITIVE_INFINITY, false, fork)));
+                continue;
+            }
+            double value = alphaBeta(next, depth, alpha, Double.POSITIVE_INFINITY, false, ctx);
+            scores[move] = value;
+            if (best < 0 || value > alpha) {
+                best = move;
             }
         }
-        return bestMove;
+
+        if (!tasks.isEmpty()) {
+            aiSearchPool.invoke(new RecursiveTask<Void>() {
+                @Override
+                protected Void compute() {
+                    ForkJoinTask.invokeAll(tasks);
+                    for (int i = 0; i < tasks.size(); i++) {
+                        scores[taskMoves[i]] = tasks.get(i).join();
+                    }
+                    return null;
+                }
+            });
+        }
+        return scores;
     }
 
-    private double minimax(int[][] board, int depth, boolean maximizing) {
-        if (depth == 0 || GameLogic.isGameOver(board)) {
+    /**
+     * Fail-soft alpha-beta over the same tree as {@link #minimax}: the result is exact when it lies
+     * inside (alpha, beta), and otherwise a bound on the wrong side of the window. Only exact values
+     * go into the transposition table, so they stay interchangeable with minimax's.
+     *
+     * Player moves are tried best-first by the static heuristic; at the adversary layer the cell
+     * that last refuted a player move at the same depth (the killer) is tried first.
+     */
+    private double alphaBeta(long board, int depth, double alpha, double beta, boolean maximizing, SearchContext ctx) {
+        ctx.nodes.increment();
+        if (depth == 0 || Bitboard.isGameOver(board)) {
             return evaluateBoard(board);
         }
+        if (depth > 1) ctx.checkDeadline();
 
+        int nodeType = maximizing ? TranspositionTable.MINIMAX_MAX : TranspositionTable.MINIMAX_MIN;
+        double cached = transpositionTable.probe(board, depth, nodeType);
+        if (!Double.isNaN(cached)) return cached;
+
+        double value;
         if (maximizing) {
-            double maxEval = Double.NEGATIVE_INFINITY;
-            for (String move : new String[]{"UP", "DOWN", "LEFT", "RIGHT"}) {
-                GameLogic.BoardMoveResult result = applyMove(board, move);
-                if (result.moved()) {
-                    double eval = minimax(result.board(), depth - 1, false);
-                    maxEval = Math.max(maxEval, eval);
-                }
+            int count = orderPlayerMoves(board, depth, ctx);
+            int base = depth * 4;
+            value = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < count && value < beta; i++) {
+                double eval = alphaBeta(ctx.orderedChildren[base + i], depth - 1, Math.max(alpha, value), beta, false, ctx);
+                value = Math.max(value, eval);
             }
-            return maxEval == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : maxEval;
+            if (value == Double.NEGATIVE_INFINITY) value = evaluateBoard(board);
         } else {
-            List<int[]> empty = GameLogic.getEmptyCells(board);
-            if (empty.isEmpty()) return evaluateBoard(board);
+            int empty = Bitboard.emptyMask(board);
+            if (empty == 0) return evaluateBoard(board);
+
+            value = Double.POSITIVE_INFINITY;
+            int killer = ctx.killerCells[depth];
+            if (killer >= 0 && (empty & (1 << killer)) != 0) {
+                value = alphaBeta(Bitboard.withExponent(board, killer, 1), depth - 1, alpha, beta, true, ctx);
+                empty &= ~(1 << killer);
+            }
+            for (int m = empty; m != 0 && value > alpha; m &= m - 1) {
+                int cell = Integer.numberOfTrailingZeros(m);
+                double eval = alphaBeta(Bitboard.withExponent(board, cell, 1), depth - 1, alpha, Math.min(beta, value), true, ctx);
+                if (eval < value) {
+                    value = eval;
+                    if (value <= alpha) ctx.killerCells[depth] = cell;
+                }
+            }
+        }
 
-            double minEval = Double.POSITIVE_INFINITY;
-            for (int[] c : empty) {
-                int[][] b2 = copy(board);
-                b2[c[0]][c[1]] = 2;
-                minEval = Math.min(minEval, minimax(b2, depth - 1, true));
+        if (value > alpha && value < beta) {
+            transpositionTable.store(board, depth, nodeType, value);
+        }
+        return value;
+    }
+
+    // Fills the depth's slice of ctx.orderedChildren with the legal moves' boards, best heuristic first
+    private int orderPlayerMoves(long board, int depth, SearchContext ctx) {
+        long[] children = ctx.orderedChildren;
+        double[] scores = ctx.orderedScores;
+        int base = depth * 4;
+        int count = 0;
+        for (int move : MOVES) {
+            long next = Bitboard.move(board, move);
+            if (next == board) continue;
+
+            double score = evaluateBoard(next);
+            int i = base + count++;
+            while (i > base && scores[i - 1] < score) {
+                children[i] = children[i - 1];
+                scores[i] = scores[i - 1];
+                i--;
             }
-            return minEval;
+            children[i] = next;
+            scores[i] = score;
         }
+        return count;
     }
 
-    /* ================= HEURISTIC EVALUATION ================= */
+    /**
+     * Plain minimax, exploring every player move and every adversary 2-tile placement. No longer
+     * used by the MINIMAX algorithm; kept as the reference alpha-beta is tested against.
+     */
+    String minimaxReferenceMove(long board, SearchContext ctx) {
+        int depth = ctx.getDepth() - 1;
+        return pickBest(scoreRootMoves(board, ctx, MOVES, next -> minimax(next, depth, false, ctx)));
+    }
 
-    private double evaluateBoard(int[][] b) {
-        double snakeScore = snakePattern(b);
-        double monotonicityScore = improvedMonotonicity(b);
-        double smoothScore = improvedSmoothness(b);
-        double emptyScore = countEmpty(b);
-        double mergeScore = mergePotential(b);
-
-        return 10000.0 * snakeScore +
-                1000.0 * monotonicityScore +
-                100.0 * smoothScore +
-                270.0 * emptyScore +
-                300.0 * mergeScore;
-    }
-
-    private double snakePattern(int[][] b) {
-        int[][] weights = {
-                {15, 14, 13, 12},
-                {8,  9,  10, 11},
-                {7,  6,  5,  4},
-                {0,  1,  2,  3}
-        };
+    /**
+     * Alpha-beta entry point for tests, alongside {@link #minimaxReferenceMove}.
+     */
+    String alphaBetaMove(long board, SearchContext ctx) {
+        return minimaxMove(board, ctx);
+    }
+
+    private double minimax(long board, int depth, boolean maximizing, SearchContext ctx) {
+        ctx.nodes.increment();
+        if (depth == 0 || Bitboard.isGameOver(board)) {
+            return evaluateBoard(board);
+        }
+        if (depth > 1) ctx.checkDeadline();
 
-        double score = 0;
-        int maxTile = 0;
+        int nodeType = maximizing ? TranspositionTable.MINIMAX_MAX : TranspositionTable.MINIMAX_MIN;
+        double cached = transpositionTable.probe(board, depth, nodeType);
+        if (!Double.isNaN(cached)) return cached;
 
-        for (int r = 0; r < 4; r++) {
-            for (int c = 0; c < 4; c++) {
-                if (b[r][c] > 0) {
-                    double value = Math.pow(2, log2(b[r][c]) * 1.5);
-                    score += value * Math.pow(2, weights[r][c]);
-                    maxTile = Math.max(maxTile, b[r][c]);
+        double value;
+        if (maximizing) {
+            double maxEval = Double.NEGATIVE_INFINITY;
+            for (int move : MOVES) {
+                long next = Bitboard.move(board, move);
+                if (next != board) {
+                    double eval = minimax(next, depth - 1, false, ctx);
+                    maxEval = Math.max(maxEval, eval);
                 }
             }
-        }
+            value = maxEval == Double.NEGATIVE_INFINITY ? evaluateBoard(board) : maxEval;
+        } else {
+            int empty = Bitboard.emptyMask(board);
+            if (empty == 0) return evaluateBoard(board);
 
-        if (b[0][0] == maxTile) {
-            score *= 2.0;
+            double minEval = Double.POSITIVE_INFINITY;
+            if (shouldFork(depth, ctx)) {
+                List<ValueTask> tasks = new ArrayList<>();
+                for (int m = empty; m != 0; m &= m - 1) {
+                    int cell = Integer.numberOfTrailingZeros(m);
+                    tasks.add(new ValueTask(() -> minimax(Bitboard.withExponent(board, cell, 1), depth - 1, true, ctx)));
+                }
+                ForkJoinTask.invokeAll(tasks);
+                for (ValueTask task : tasks) {
+                    minEval = Math.min(minEval, task.join());
+                }
+            } else {
+                for (int m = empty; m != 0; m &= m - 1) {
+                    int cell = Integer.numberOfTrailingZeros(m);
+                    minEval = Math.min(minEval, minimax(Bitboard.withExponent(board, cell, 1), depth - 1, true, ctx));
+                }
+            }
+            value = minEval;
         }
-
-        return score;
+        transpositionTable.store(board, depth, nodeType, value);
+        return value;
     }
 
-    private double improvedMonotonicity(int[][] b) {
-        double[] totals = new double[4];
+    /* ================= PARALLEL SEARCH ================= */
 
-        for (int r = 0; r < 4; r++) {
-            int current = 0;
-            int next = current + 1;
-            while (next < 4) {
-                while (next < 4 && b[r][next] == 0) next++;
-                if (next >= 4) break;
+    /**
+     * Scores each legal root move, visiting them in the given order; illegal moves stay at -infinity.
+     * Root moves are searched as separate fork/join tasks when parallel search is enabled.
+     */
+    private double[] scoreRootMoves(long board, SearchContext ctx, int[] order, LongToDoubleFunction search) {
+        double[] scores = ctx.rootScores;
+        Arrays.fill(scores, Double.NEGATIVE_INFINITY);
 
-                double currentValue = b[r][current] > 0 ? log2(b[r][current]) : 0;
-                double nextValue = log2(b[r][next]);
+        if (!ctx.isParallel() || !parallelEnabled || aiSearchPool == null) {
+            for (int move : order) {
+                long next = Bitboard.move(board, move);
+                if (next != board) scores[move] = search.applyAsDouble(next);
+            }
+            return scores;
+        }
 
-                if (currentValue > nextValue) {
-                    totals[0] += nextValue - currentValue;
-                } else if (nextValue > currentValue) {
-                    totals[1] += currentValue - nextValue;
+        aiSearchPool.invoke(new RecursiveTask<Void>() {
+            @Override
+            protected Void compute() {
+                ValueTask[] tasks = new ValueTask[MOVES.length];
+                for (int move : order) {
+                    long next = Bitboard.move(board, move);
+                    if (next != board) tasks[move] = new ValueTask(() -> search.applyAsDouble(next));
+                }
+                ForkJoinTask.invokeAll(Arrays.stream(order).mapToObj(m -> tasks[m]).filter(Objects::nonNull).toList());
+                for (int move : MOVES) {
+                    if (tasks[move] != null) scores[move] = tasks[move].join();
                 }
+                return null;
+            }
+        });
+        return scores;
+    }
 
-                current = next;
-                next++;
+    // First move in UP, DOWN, LEFT, RIGHT order with the strictly highest score
+    private static String pickBest(double[] scores) {
+        String bestMove = "UP";
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (int move : MOVES) {
+            if (scores[move] > bestScore) {
+                bestScore = scores[move];
+                bestMove = Bitboard.MOVE_NAMES[move];
             }
         }
+        return bestMove;
+    }
 
-        for (int c = 0; c < 4; c++) {
-            int current = 0;
-            int next = current + 1;
-            while (next < 4) {
-                while (next < 4 && b[next][c] == 0) next++;
-                if (next >= 4) break;
-
-                double currentValue = b[current][c] > 0 ? log2(b[current][c]) : 0;
-                double nextValue = log2(b[next][c]);
-
-                if (currentValue > nextValue) {
-                    totals[2] += nextValue - currentValue;
-                } else if (nextValue > currentValue) {
-                    totals[3] += currentValue - nextValue;
-                }
+    private boolean shouldFork(int depth, SearchContext ctx) {
+        return ctx.isParallel() && parallelEnabled && depth >= parallelMinDepth
+                && aiSearchPool != null && ForkJoinTask.getPool() == aiSearchPool;
+    }
 
-                current = next;
-                next++;
-            }
+    // Children are summed in a fixed order so parallel and sequential searches return identical values
+    private static double sumAll(List<ValueTask> tasks) {
+        ForkJoinTask.invokeAll(tasks);
+        double sum = 0;
+        for (ValueTask task : tasks) {
+            sum += task.join();
         }
+        return sum;
+    }
 
-        return Math.max(totals[0], totals[1]) + Math.max(totals[2], totals[3]);
+    public Map<String, Object> getEngineStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("transpositionTable", transpositionTable.getStats());
+        stats.put("decisionCache", decisionCache.getStats());
+        long leaders = leaderSearches.sum();
+        long coalesced = coalescedSearches.sum();
+        stats.put("coalescing", Map.of(
+                "searches", leaders,
+                "coalescedRequests", coalesced,
+                "inFlight", inFlightSearches.size(),
+                "coalescedRate", leaders + coalesced == 0 ? 0.0 : (double) coalesced / (leaders + coalesced)
+        ));
+        stats.put("searchPool", Map.of(
+                "parallelism", aiSearchPool.getParallelism(),
+                "activeThreads", aiSearchPool.getActiveThreadCount(),
+                "queuedTasks", aiSearchPool.getQueuedTaskCount(),
+                "steals", aiSearchPool.getStealCount()
+        ));
+        return stats;
     }
 
-    private double improvedSmoothness(int[][] b) {
-        double smooth = 0;
+    /* ================= HEURISTIC EVALUATION ================= */
 
-        for (int r = 0; r < 4; r++) {
-            for (int c = 0; c < 4; c++) {
-                if (b[r][c] == 0) continue;
+    private double evaluateBoard(long b) {
+        return HeuristicEvaluator.evaluate(b);
+    }
 
-                double value = log2(b[r][c]);
+    /* ================= HELPER CLASSES ================= */
 
-                if (c + 1 < 4 && b[r][c + 1] != 0) {
-                    double targetValue = log2(b[r][c + 1]);
-                    smooth -= Math.abs(value - targetValue);
-                }
+    private static class ValueTask extends RecursiveTask<Double> {
+        private final DoubleSupplier search;
 
-                if (r + 1 < 4 && b[r + 1][c] != 0) {
-                    double targetValue = log2(b[r + 1][c]);
-                    smooth -= Math.abs(value - targetValue);
-                }
-            }
+        ValueTask(DoubleSupplier search) {
+            this.search = search;
         }
 
-        return smooth;
+        @Override
+        protected Double compute() {
+            return search.getAsDouble();
+        }
     }
 
-    private double log2(int v) {
-        return v <= 0 ? 0 : Math.log(v) / Math.log(2);
-    }
+    /**
+     * FIFO of (board, first-move mask) pairs in an array-backed ring, with an open-addressed index of
+     * the boards offered since the last startLevel(). Offering a board already on the level only ORs
+     * its mask into the queued entry. Boards are never 0 here (a move always leaves a tile), so 0
+     * marks a free index slot.
+     */
+    private static final class BoardFrontier {
+        private long[] boards = new long[64];
+        private int[] masks = new int[64];
+        private int head;
+        private int size;
+        private int levelStart;
+
+        private long[] indexKeys = new long[128];
+        private int[] indexSlots = new int[128];
+        private int indexed;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
 
-    private int countEmpty(int[][] b) {
-        int count = 0;
-        for (int[] row : b) {
-            for (int v : row) {
-                if (v == 0) count++;
-            }
+        int levelSize() {
+            return size;
         }
-        return count;
-    }
 
-    private double mergePotential(int[][] b) {
-        double score = 0;
+        long peekBoard() {
+            return boards[head];
+        }
 
-        for (int r = 0; r < 4; r++) {
-            for (int c = 0; c < 3; c++) {
-                if (b[r][c] != 0 && b[r][c] == b[r][c + 1]) {
-                    score += log2(b[r][c]);
-                }
-            }
+        // Returns the first-move mask of the head entry and removes it
+        int poll() {
+            int mask = masks[head];
+            head = (head + 1) & (boards.length - 1);
+            size--;
+            return mask;
         }
 
-        for (int c = 0; c < 4; c++) {
-            for (int r = 0; r < 3; r++) {
-                if (b[r][c] != 0 && b[r][c] == b[r + 1][c]) {
-                    score += log2(b[r][c]);
-                }
-            }
+        // Entries queued before this call belong to the previous level and are no longer merged into
+        void startLevel() {
+            Arrays.fill(indexKeys, 0L);
+            indexed = 0;
+            levelStart = (head + size) & (boards.length - 1);
         }
 
-        return score;
-    }
+        void offer(long board, int firstMoves) {
+            int mask = indexKeys.length - 1;
+            int i = hash(board) & mask;
+            while (indexKeys[i] != 0) {
+                if (indexKeys[i] == board) {
+                    masks[ringIndex(indexSlots[i])] |= firstMoves;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
 
-    /* ================= UTILITY METHODS ================= */
+            if (size == boards.length) growRing();
+            int offset = (head + size - levelStart) & (boards.length - 1);
+            int tail = (head + size) & (boards.length - 1);
+            boards[tail] = board;
+            masks[tail] = firstMoves;
+            size++;
 
-    private GameLogic.BoardMoveResult applyMove(int[][] board, String dir) {
-        return switch (dir) {
-            case "UP" -> GameLogic.moveUp(board);
-            case "DOWN" -> GameLogic.moveDown(board);
-            case "LEFT" -> GameLogic.moveLeft(board);
-            case "RIGHT" -> GameLogic.moveRight(board);
-            default -> new GameLogic.BoardMoveResult(board, 0, false);
-        };
-    }
+            indexKeys[i] = board;
+            indexSlots[i] = offset;
+            if (++indexed * 2 > indexKeys.length) growIndex();
+        }
 
-    private int[][] copy(int[][] b) {
-        int[][] n = new int[4][4];
-        for (int i = 0; i < 4; i++)
-            System.arraycopy(b[i], 0, n[i], 0, 4);
-        return n;
-    }
+        // Ring position of the entry offered at this offset from the start of the level
+        private int ringIndex(int offset) {
+            return (levelStart + offset) & (boards.length - 1);
+        }
 
-    /* ================= HELPER CLASSES ================= */
+        private void growRing() {
+            int capacity = boards.length * 2;
+            long[] newBoards = new long[capacity];
+            int[] newMasks = new int[capacity];
+            for (int k = 0; k < size; k++) {
+                int from = (head + k) & (boards.length - 1);
+                newBoards[k] = boards[from];
+                newMasks[k] = masks[from];
+            }
+            levelStart = (levelStart - head) & (boards.length - 1);
+            boards = newBoards;
+            masks = newMasks;
+            head = 0;
+        }
 
-    private static class SearchNode {
-        int[][] board;
-        String firstMove;
-        int depth;
+        private void growIndex() {
+            long[] oldKeys = indexKeys;
+            int[] oldSlots = indexSlots;
+            indexKeys = new long[oldKeys.length * 2];
+            indexSlots = new int[oldKeys.length * 2];
+            int mask = indexKeys.length - 1;
+            for (int k = 0; k < oldKeys.length; k++) {
+                if (oldKeys[k] == 0) continue;
+                int i = hash(oldKeys[k]) & mask;
+                while (indexKeys[i] != 0) i = (i + 1) & mask;
+                indexKeys[i] = oldKeys[k];
+                indexSlots[i] = oldSlots[k];
+            }
+        }
 
-        SearchNode(int[][] board, String firstMove, int depth) {
-            this.board = board;
-            this.firstMove = firstMove;
-            this.depth = depth;
+        private static int hash(long board) {
+            long h = board * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column store of every game record for the /stats endpoints. Each field is a primitive array
+ * indexed by row; username and gameMode are dictionary-encoded to int ids. Loaded from
+ * game_records and game_record_summaries at startup in id order, then appended to from
+ * GameRecordsSavedEvent.
+ *
+ * A row is either one game (gameCount 1) or one summary row, whose score and hints columns hold
+ * sums over its games.
+ *
+ * Queries scan the arrays under the read lock; appends take the write lock. Records saved while
+ * the startup load runs are held back and appended after it. Events are published after their
+ * commit, so one can also arrive after the load has read its rows: saved records are appended by
+ * id, at most once.
+ */
+@Component
+public class AnalyticsStore {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Rows per query while loading
+    @Value("${game.analytics.load-chunk-size:50000}")
+    private int loadChunkSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> usernameIds = new HashMap<>();
+    private final List<String> usernames = new ArrayList<>();
+    private final Map<String, Integer> gameModeIds = new HashMap<>();
+    private final List<String> gameModes = new ArrayList<>();
+
+    private int size;
+    private int[] usernameCol = new int[INITIAL_CAPACITY];
+    private int[] gameModeCol = new int[INITIAL_CAPACITY];
+    private int[] gameCountCol = new int[INITIAL_CAPACITY];
+    private long[] scoreCol = new long[INITIAL_CAPACITY];
+    private int[] maxTileCol = new int[INITIAL_CAPACITY];
+    private long[] hintsUsedCol = new long[INITIAL_CAPACITY];
+    private long[] createdAtCol = new long[INITIAL_CAPACITY]; // epoch millis
+
+    // Ids of the game_records rows in the store; ids beyond int range go to the set
+    private final BitSet recordIds = new BitSet();
+    private final Set<Long> largeRecordIds = new HashSet<>();
+
+    private volatile boolean loaded;
+
+    // Records saved while the store was loading, appended once it is; null after that
+    private List<GameRecord> savedDuringLoad = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try {
+            loadTable("SELECT id, username, game_mode, 1, score, max_tile, hints_used, created_at " +
+                    "FROM game_records WHERE id > ? ORDER BY id LIMIT ?", true);
+            loadTable("SELECT id, username, game_mode, game_count, score_sum, max_tile, hints_sum, summary_day " +
+                    "FROM game_record_summaries WHERE id > ? ORDER BY id LIMIT ?", false);
+
+            lock.writeLock().lock();
+            try {
+                for (GameRecord record : savedDuringLoad) {
+                    append(record);
+                }
+                savedDuringLoad = null;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("Analytics store loaded: " + size + " rows in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                savedDuringLoad = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            System.out.println("Analytics store load failed, stats served from database: " + e.getMessage());
+        }
+    }
+
+    // Keyset-paged over id; columns: id, username, game_mode, count, score, max_tile, hints, timestamp.
+    // Row ids are recorded when recordIds is set.
+    private void loadTable(String sql, boolean recordIds) {
+        long[] lastId = {0};
+        int chunk = Math.max(1, loadChunkSize);
+        int read;
+        do {
+            int before = size;
+            jdbcTemplate.query(sql, rs -> {
+                lastId[0] = rs.getLong(1);
+                if (recordIds) {
+                    addRecordId(lastId[0]);
+                }
+                Timestamp createdAt = rs.getTimestamp(8);
+                append(rs.getString(2), rs.getString(3), rs.getInt(4), rs.getLong(5), rs.getInt(6), rs.getLong(7),
+                        createdAt != null ? createdAt.getTime() : 0L);
+            }, lastId[0], chunk);
+            read = size - before;
+        } while (read == chunk);
+    }
+
+    @EventListener
+    public void onRecordsSaved(GameRecordsSavedEvent event) {
+        if (!loaded) {
+            lock.writeLock().lock();
+            try {
+                if (!loaded) {
+                    if (savedDuringLoad != null) savedDuringLoad.addAll(event.records());
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        for (GameRecord record : event.records()) {
+            append(record);
+        }
+    }
+
+    // Skips a record already in the store: read by the load, or delivered twice
+    private void append(GameRecord record) {
+        lock.writeLock().lock();
+        try {
+            if (record.getId() != null && !addRecordId(record.getId())) return;
+            LocalDateTime createdAt = record.getCreatedAt();
+            append(record.getUsername(), record.getGameMode(), 1, record.getScore(), record.getMaxTile(),
+                    record.getHintsUsed(), createdAt != null ? Timestamp.valueOf(createdAt).getTime() : 0L);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // False if the id was already there; called under the write lock, or by the load before events are let in
+    private boolean addRecordId(long id) {
+        if (id < 0 || id > Integer.MAX_VALUE) return largeRecordIds.add(id);
+        if (recordIds.get((int) id)) return false;
+        recordIds.set((int) id);
+        return true;
+    }
+
+    private void append(String username, String gameMode, int gameCount, long score, int maxTile, long hintsUsed,
+                        long createdAt) {
+        lock.writeLock().lock();
+        try {
+            if (size == scoreCol.length) {
+                int capacity = size * 2;
+                usernameCol = Arrays.copyOf(usernameCol, capacity);
+                gameModeCol = Arrays.copyOf(gameModeCol, capacity);
+                gameCountCol = Arrays.copyOf(gameCountCol, capacity);
+                scoreCol = Arrays.copyOf(scoreCol, capacity);
+                maxTileCol = Arrays.copyOf(maxTileCol, capacity);
+                hintsUsedCol = Arrays.copyOf(hintsUsedCol, capacity);
+                createdAtCol = Arrays.copyOf(createdAtCol, capacity);
+            }
+            usernameCol[size] = encode(username, usernameIds, usernames);
+            gameModeCol[size] = encode(gameMode, gameModeIds, gameModes);
+            gameCountCol[size] = gameCount;
+            scoreCol[size] = score;
+            maxTileCol[size] = maxTile;
+            hintsUsedCol[size] = hintsUsed;
+            createdAtCol[size] = createdAt;
+            size++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int encode(String value, Map<String, Integer> ids, List<String> values) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = values.size();
+            ids.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /* ================= QUERIES ================= */
+
+    /**
+     * Max-tile statistics of a category (GameRecord.categoryOf of the game mode).
+     */
+    public Map<String, Object> categoryStats(String category) {
+        lock.readLock().lock();
+        try {
+            boolean[] matches = new boolean[gameModes.size()];
+            for (int m = 0; m < matches.length; m++) {
+                matches[m] = inCategory(gameModes.get(m), category);
+            }
+
+            long count = 0;
+            double sum = 0;
+            // Max tiles are powers of two: count them by exponent, anything else goes to the map
+            int[] exponentCounts = new int[Integer.SIZE];
+            Map<Integer, Integer> distribution = new HashMap<>();
+            int max = Integer.MIN_VALUE;
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < size; i++) {
+                if (!matches[gameModeCol[i]]) continue;
+                int tile = maxTileCol[i];
+                int games = gameCountCol[i];
+                count += games;
+                sum += (double) tile * games;
+                if (tile > 0 && (tile & (tile - 1)) == 0) {
+                    exponentCounts[Integer.numberOfTrailingZeros(tile)] += games;
+                } else {
+                    distribution.merge(tile, games, Integer::sum);
+                }
+                max = Math.max(max, tile);
+                min = Math.min(min, tile);
+            }
+            for (int e = 0; e < exponentCounts.length; e++) {
+                if (exponentCounts[e] > 0) distribution.put(1 << e, exponentCounts[e]);
+            }
+
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("category", category);
+            stats.put("totalGames", count);
+            if (count == 0) return stats;
+
+            // Variance from the distribution: one term per distinct tile rather than per game
+            double mean = sum / count;
+            double squares = 0;
+            for (Map.Entry<Integer, Integer> e : distribution.entrySet()) {
+                double d = e.getKey() - mean;
+                squares += d * d * e.getValue();
+            }
+            double variance = squares / count;
+
+            int mode = distribution.entrySet().stream()
+                    .max(Map.Entry.comparingByValue())
+                    .map(Map.Entry::getKey)
+                    .orElse(0);
+
+            stats.put("distribution", distribution);
+            stats.put("mean", mean);
+            stats.put("variance", variance);
+            stats.put("stdDev", Math.sqrt(variance));
+            stats.put("mode", mode);
+            stats.put("max", max);
+            stats.put("min", min);
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Same as the category column: case-insensitive, like the database collation
+    private static boolean inCategory(String gameMode, String category) {
+        return GameRecord.categoryOf(gameMode).equalsIgnoreCase(category);
+    }
+}
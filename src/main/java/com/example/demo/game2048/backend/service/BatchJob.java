@@ -0,0 +1,143 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.dto.BatchResultDTO;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * One asynchronous batch run. Progress counters are updated by the batch workers and read by
+ * polling requests without locking.
+ */
+public class BatchJob implements BatchSimulator.ProgressListener {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED }
+
+    private final String id;
+    private final String sessionId;
+    private final int count;
+    private final long createdAt = System.currentTimeMillis();
+
+    private final AtomicInteger gamesDone = new AtomicInteger();
+    // Index = max tile exponent
+    private final AtomicIntegerArray histogram = new AtomicIntegerArray(Bitboard.MAX_EXPONENT + 1);
+
+    private volatile Status status = Status.QUEUED;
+    private volatile boolean cancelRequested;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile BatchResultDTO result;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    BatchJob(String id, String sessionId, int count) {
+        this.id = id;
+        this.sessionId = sessionId;
+        this.count = count;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelRequested;
+    }
+
+    @Override
+    public void onGameFinished(int maxTile) {
+        histogram.incrementAndGet(maxTile == 0 ? 0 : Integer.numberOfTrailingZeros(maxTile));
+        gamesDone.incrementAndGet();
+    }
+
+    void markRunning() {
+        startedAt = System.currentTimeMillis();
+        status = Status.RUNNING;
+    }
+
+    void markFinished(BatchResultDTO result) {
+        this.result = result;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = cancelRequested ? Status.CANCELLED : Status.COMPLETED;
+    }
+
+    void markFailed(String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = Status.FAILED;
+    }
+
+    /**
+     * Ask the job to stop. A queued job never starts; a running one stops after its current moves
+     * and keeps the games already finished as its result.
+     */
+    void cancel() {
+        cancelRequested = true;
+        Future<?> f = future;
+        if (status == Status.QUEUED && f != null && f.cancel(false)) {
+            finishedAt = System.currentTimeMillis();
+            result = new BatchResultDTO(new HashMap<>(), 0, 0);
+            status = Status.CANCELLED;
+        }
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public boolean isFinished() {
+        Status s = status;
+        return s == Status.COMPLETED || s == Status.CANCELLED || s == Status.FAILED;
+    }
+
+    public Map<String, Object> getProgress() {
+        long now = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+        long elapsedMs = startedAt == 0 ? 0 : now - startedAt;
+        int done = gamesDone.get();
+
+        Map<Integer, Integer> tiles = new HashMap<>();
+        for (int e = 0; e < histogram.length(); e++) {
+            int n = histogram.get(e);
+            if (n > 0) tiles.put(e == 0 ? 0 : 1 << e, n);
+        }
+
+        Map<String, Object> progress = new HashMap<>();
+        progress.put("jobId", id);
+        progress.put("status", status);
+        progress.put("totalGames", count);
+        progress.put("gamesDone", done);
+        progress.put("histogram", tiles);
+        progress.put("elapsedMs", elapsedMs);
+        progress.put("gamesPerSecond", elapsedMs > 0 ? done * 1000.0 / elapsedMs : 0.0);
+        if (error != null) progress.put("error", error);
+        return progress;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public BatchResultDTO getResult() {
+        return result;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.dto.BatchResultDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Runs batch simulations in the background. Jobs belong to the session that submitted them; the job
+ * executor bounds how many run at once and how many may wait, and rejects the rest.
+ */
+@Service
+public class BatchJobService {
+
+    // jobId -> job
+    private final Map<String, BatchJob> jobs = new ConcurrentHashMap<>();
+
+    @Autowired
+    private GameService gameService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private BatchSimulator batchSimulator;
+
+    @Autowired
+    @Qualifier("batchJobExecutor")
+    private ExecutorService batchJobExecutor;
+
+    // Finished jobs are kept this long for result polling
+    @Value("${game.batch.jobs.retention-ms:3600000}")
+    private long retentionMs;
+
+    /**
+     * Queue a batch run and return immediately.
+     *
+     * @throws RejectedExecutionException when the job queue is full
+     */
+    public BatchJob submit(String sessionId, int boardId, int count, String username, String algorithm, Long seed) {
+        SearchContext template = gameService.batchSearchContext(sessionId, boardId, algorithm);
+
+        BatchJob job = new BatchJob(UUID.randomUUID().toString(), sessionId, count);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(batchJobExecutor.submit(() -> runJob(job, template, username, seed)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void runJob(BatchJob job, SearchContext template, String username, Long seed) {
+        if (job.isCancelled()) {
+            job.markFinished(new BatchResultDTO(new HashMap<>(), 0, 0));
+            return;
+        }
+        job.markRunning();
+        try {
+            BatchResultDTO result = batchSimulator.run(template, job.getCount(), username, seed, job);
+            job.markFinished(result);
+        } catch (RuntimeException e) {
+            System.out.println("Batch job " + job.getId() + " failed: " + e.getMessage());
+            job.markFailed(e.getMessage());
+        }
+    }
+
+    /**
+     * The caller's job, or null when it does not exist or belongs to another session.
+     */
+    public BatchJob getJob(String sessionId, String jobId) {
+        if (!sessionService.isValidSession(sessionId)) {
+            throw new IllegalStateException("Invalid or expired session");
+        }
+
+        sessionService.touchSession(sessionId);
+
+        BatchJob job = jobs.get(jobId);
+        if (job == null || !job.getSessionId().equals(sessionId)) {
+            return null;
+        }
+        return job;
+    }
+
+    public BatchJob cancel(String sessionId, String jobId) {
+        BatchJob job = getJob(sessionId, jobId);
+        if (job != null) {
+            job.cancel();
+        }
+        return job;
+    }
+
+    /**
+     * Drop finished jobs older than the retention period; returns how many were removed.
+     */
+    public int purgeFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - retentionMs;
+        int before = jobs.size();
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt() < cutoff);
+        return before - jobs.size();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.dto.BatchResultDTO;
+import com.example.demo.game2048.backend.entity.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.random.RandomGenerator;
+
+/**
+ * Plays simulated AI games for batch runs, spread over the batch worker pool.
+ */
+@Service
+public class BatchSimulator {
+
+    private static final int MAX_MOVES = 10000;
+
+    private record FinishedGame(long board, int score) {}
+
+    /**
+     * Receives per-game progress and may stop a run between moves.
+     */
+    public interface ProgressListener {
+        ProgressListener NONE = new ProgressListener() {};
+
+        default boolean isCancelled() {
+            return false;
+        }
+
+        default void onGameFinished(int maxTile) {
+        }
+    }
+
+    @Autowired
+    private AiAlgorithms aiAlgorithms;
+
+    @Autowired
+    private GameRecordWriter recordWriter;
+
+    @Autowired
+    @Qualifier("batchExecutor")
+    private ExecutorService batchExecutor;
+
+    // Number of games of one batch run played concurrently (0 = one per core)
+    @Value("${game.batch.workers:0}")
+    private int batchWorkers;
+
+    /**
+     * Play count games and return the max-tile histogram. When the listener cancels the run,
+     * the result covers only the games that finished.
+     */
+    public BatchResultDTO run(SearchContext template, int count, String username, Long seed, ProgressListener listener) {
+        long startTime = System.currentTimeMillis();
+
+        String gameMode = "BATCH_" + template.getAlgorithm();
+        long baseSeed = seed != null ? seed : new SplittableRandom().nextLong();
+
+        // Workers pull game indices from a shared counter; each game's random stream depends only on
+        // its index, so seeded runs are reproducible whatever the worker interleaving
+        AtomicInteger nextGame = new AtomicInteger();
+        int poolSize = batchWorkers > 0 ? batchWorkers : Runtime.getRuntime().availableProcessors();
+        int workers = Math.max(1, Math.min(count, poolSize));
+        List<Future<int[]>> futures = new ArrayList<>(workers);
+        for (int w = 0; w < workers; w++) {
+            futures.add(batchExecutor.submit(() -> {
+                SearchContext ctx = template.withParallel(false); // own scratch buffers per worker
+                int[] tileCounts = new int[Bitboard.MAX_EXPONENT + 1];
+                // Records are written a whole chunk at a time, not once per game
+                List<GameRecord> pending = new ArrayList<>(recordWriter.getBatchSize());
+                for (int i = nextGame.getAndIncrement(); i < count && !listener.isCancelled(); i = nextGame.getAndIncrement()) {
+                    FinishedGame game = playGame(ctx, gameRandom(baseSeed, i), listener);
+                    if (game == null) break; // cancelled mid-game
+
+                    pending.add(toRecord(game, username, gameMode));
+                    if (pending.size() >= recordWriter.getBatchSize()) {
+                        recordWriter.saveAll(pending);
+                        pending.clear();
+                    }
+                    tileCounts[Bitboard.maxExponent(game.board())]++;
+                    listener.onGameFinished(Bitboard.maxTile(game.board()));
+                }
+                recordWriter.saveAll(pending);
+                return tileCounts;
+            }));
+        }
+
+        Map<Integer, Integer> stats = new HashMap<>();
+        int played = 0;
+        try {
+            for (Future<int[]> future : futures) {
+                int[] tileCounts = awaitWorker(future);
+                for (int e = 0; e < tileCounts.length; e++) {
+                    if (tileCounts[e] > 0) {
+                        stats.merge(e == 0 ? 0 : 1 << e, tileCounts[e], Integer::sum);
+                        played += tileCounts[e];
+                    }
+                }
+            }
+        } finally {
+            futures.forEach(f -> f.cancel(true));
+        }
+
+        long endTime = System.currentTimeMillis();
+        return new BatchResultDTO(stats, played, (endTime - startTime));
+    }
+
+    private static SplittableRandom gameRandom(long baseSeed, int gameIndex) {
+        return new SplittableRandom(baseSeed + gameIndex * 0x9E3779B97F4A7C15L);
+    }
+
+    private static int[] awaitWorker(Future<int[]> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for batch games", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Batch game failed", e.getCause());
+        }
+    }
+
+    /**
+     * Play one AI game to the end, or return null if the run was cancelled first.
+     */
+    private FinishedGame playGame(SearchContext ctx, RandomGenerator random, ProgressListener listener) {
+        long tempBoard = Bitboard.spawnTile(Bitboard.spawnTile(0L, random), random);
+        int tempScore = 0;
+
+        boolean isDone = false;
+        int moveCount = 0;
+
+        while (!isDone && moveCount < MAX_MOVES) {
+            if (listener.isCancelled()) return null;
+
+            String bestMove = aiAlgorithms.bestMove(tempBoard, ctx);
+            if (bestMove == null) break;
+
+            int dir = Bitboard.directionOf(bestMove);
+            long next = dir < 0 ? tempBoard : Bitboard.move(tempBoard, dir);
+
+            if (next != tempBoard) {
+                tempScore += Bitboard.moveScore(tempBoard, dir);
+                tempBoard = Bitboard.spawnTile(next, random);
+                if (Bitboard.isGameOver(tempBoard)) {
+                    isDone = true;
+                }
+            } else {
+                isDone = true;
+            }
+            moveCount++;
+        }
+        return new FinishedGame(tempBoard, tempScore);
+    }
+
+    private static GameRecord toRecord(FinishedGame game, String username, String gameMode) {
+        GameRecord record = new GameRecord();
+        record.setUsername(username);
+        record.setGameMode(gameMode);
+        record.setScore(game.score());
+        record.setMaxTile(Bitboard.maxTile(game.board()));
+        record.setHintsUsed(0);
+        return record;
+    }
+}
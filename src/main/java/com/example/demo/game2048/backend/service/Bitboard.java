@@ -0,0 +1,246 @@
+package com.example.demo.game2048.backend.service;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * 4x4 board packed into a single long: 16 nibbles, each holding the log2 exponent of a tile (0 = empty).
+ * Cell (r, c) lives at nibble r * 4 + c, so row r is the 16-bit chunk starting at bit 16 * r.
+ *
+ * Moves are resolved through 65,536-entry row tables built once at class load, so a move is a few
+ * table reads and a transpose - no allocation. Tiles are capped at 2^15 (32768); two 32768 tiles do not merge.
+ */
+public final class Bitboard {
+
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    public static final String[] MOVE_NAMES = {"UP", "DOWN", "LEFT", "RIGHT"};
+    public static final int MAX_EXPONENT = 15;
+
+    private static final int ROW_COUNT = 1 << 16;
+    private static final long ROW_MASK = 0xFFFFL;
+    private static final long NIBBLE_LSB = 0x1111111111111111L;
+
+    private static final char[] ROW_LEFT = new char[ROW_COUNT];
+    private static final char[] ROW_RIGHT = new char[ROW_COUNT];
+    private static final int[] ROW_SCORE = new int[ROW_COUNT];
+
+    static {
+        int[] line = new int[4];
+        for (int row = 0; row < ROW_COUNT; row++) {
+            for (int c = 0; c < 4; c++) {
+                line[c] = (row >>> (4 * c)) & 0xF;
+            }
+            ROW_SCORE[row] = compressLeft(line);
+            ROW_LEFT[row] = (char) packRow(line);
+            ROW_RIGHT[reverseRow(row)] = (char) reverseRow(ROW_LEFT[row]);
+        }
+    }
+
+    private Bitboard() {
+    }
+
+    /* ================= TABLE GENERATION ================= */
+
+    // Slides and merges exponents towards index 0 in place, returns the merge score
+    private static int compressLeft(int[] line) {
+        int score = 0;
+        int out = 0;
+        int pending = 0;
+        for (int c = 0; c < 4; c++) {
+            int e = line[c];
+            if (e == 0) continue;
+            if (pending == e && e < MAX_EXPONENT) {
+                line[out++] = e + 1;
+                score += 1 << (e + 1);
+                pending = 0;
+            } else {
+                if (pending != 0) line[out++] = pending;
+                pending = e;
+            }
+        }
+        if (pending != 0) line[out++] = pending;
+        while (out < 4) line[out++] = 0;
+        return score;
+    }
+
+    private static int packRow(int[] line) {
+        return line[0] | (line[1] << 4) | (line[2] << 8) | (line[3] << 12);
+    }
+
+    private static int reverseRow(int row) {
+        return ((row & 0xF) << 12) | ((row & 0xF0) << 4) | ((row >>> 4) & 0xF0) | (row >>> 12);
+    }
+
+    /* ================= MOVES ================= */
+
+    public static long move(long board, int direction) {
+        return switch (direction) {
+            case UP -> transpose(moveRowsLeft(transpose(board)));
+            case DOWN -> transpose(moveRowsRight(transpose(board)));
+            case LEFT -> moveRowsLeft(board);
+            case RIGHT -> moveRowsRight(board);
+            default -> board;
+        };
+    }
+
+    /**
+     * Score gained by moving in the given direction (sum of merged tile values).
+     * Merges within a row pair up the same tiles whichever way the row slides, so one table serves both.
+     */
+    public static int moveScore(long board, int direction) {
+        long rows = direction == UP || direction == DOWN ? transpose(board) : board;
+        return ROW_SCORE[(int) (rows & ROW_MASK)]
+                + ROW_SCORE[(int) ((rows >>> 16) & ROW_MASK)]
+                + ROW_SCORE[(int) ((rows >>> 32) & ROW_MASK)]
+                + ROW_SCORE[(int) (rows >>> 48)];
+    }
+
+    private static long moveRowsLeft(long b) {
+        return (long) ROW_LEFT[(int) (b & ROW_MASK)]
+                | (long) ROW_LEFT[(int) ((b >>> 16) & ROW_MASK)] << 16
+                | (long) ROW_LEFT[(int) ((b >>> 32) & ROW_MASK)] << 32
+                | (long) ROW_LEFT[(int) (b >>> 48)] << 48;
+    }
+
+    private static long moveRowsRight(long b) {
+        return (long) ROW_RIGHT[(int) (b & ROW_MASK)]
+                | (long) ROW_RIGHT[(int) ((b >>> 16) & ROW_MASK)] << 16
+                | (long) ROW_RIGHT[(int) ((b >>> 32) & ROW_MASK)] << 32
+                | (long) ROW_RIGHT[(int) (b >>> 48)] << 48;
+    }
+
+    /**
+     * Mirrors the board over its main diagonal: nibble (r, c) goes to (c, r).
+     */
+    public static long transpose(long x) {
+        long a1 = x & 0xF0F00F0FF0F00F0FL;
+        long a2 = x & 0x0000F0F00000F0F0L;
+        long a3 = x & 0x0F0F00000F0F0000L;
+        long a = a1 | (a2 << 12) | (a3 >>> 12);
+        long b1 = a & 0xFF00FF0000FF00FFL;
+        long b2 = a & 0x00FF00FF00000000L;
+        long b3 = a & 0x00000000FF00FF00L;
+        return b1 | (b2 >>> 24) | (b3 << 24);
+    }
+
+    public static boolean canMove(long board, int direction) {
+        return move(board, direction) != board;
+    }
+
+    public static boolean isGameOver(long board) {
+        // On a full board LEFT/RIGHT (and UP/DOWN) are blocked by exactly the same condition
+        return countEmpty(board) == 0 && moveRowsLeft(board) == board
+                && moveRowsLeft(transpose(board)) == transpose(board);
+    }
+
+    /**
+     * Direction index for "UP"/"DOWN"/"LEFT"/"RIGHT", or -1 when the name is not a direction.
+     */
+    public static int directionOf(String name) {
+        if (name == null) return -1;
+        return switch (name) {
+            case "UP" -> UP;
+            case "DOWN" -> DOWN;
+            case "LEFT" -> LEFT;
+            case "RIGHT" -> RIGHT;
+            default -> -1;
+        };
+    }
+
+    /* ================= CELLS ================= */
+
+    public static int exponentAt(long board, int index) {
+        return (int) ((board >>> (4 * index)) & 0xF);
+    }
+
+    public static int exponentAt(long board, int r, int c) {
+        return exponentAt(board, r * 4 + c);
+    }
+
+    public static long withExponent(long board, int index, int exponent) {
+        int shift = 4 * index;
+        return (board & ~(0xFL << shift)) | ((long) exponent << shift);
+    }
+
+    public static int row(long board, int r) {
+        return (int) ((board >>> (16 * r)) & ROW_MASK);
+    }
+
+    public static int countEmpty(long board) {
+        long occupied = (board | (board >>> 1) | (board >>> 2) | (board >>> 3)) & NIBBLE_LSB;
+        return 16 - Long.bitCount(occupied);
+    }
+
+    /**
+     * Bit i of the result is set when cell i is empty.
+     */
+    public static int emptyMask(long board) {
+        int mask = 0;
+        for (int i = 0; i < 16; i++) {
+            if (((board >>> (4 * i)) & 0xF) == 0) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    public static int maxExponent(long board) {
+        int max = 0;
+        for (int i = 0; i < 16; i++) {
+            max = Math.max(max, (int) ((board >>> (4 * i)) & 0xF));
+        }
+        return max;
+    }
+
+    public static int maxTile(long board) {
+        int e = maxExponent(board);
+        return e == 0 ? 0 : 1 << e;
+    }
+
+    /**
+     * Places a 2 (90%) or 4 (10%) on a uniformly chosen empty cell; returns the board unchanged when full.
+     */
+    public static long spawnTile(long board, RandomGenerator random) {
+        int empty = countEmpty(board);
+        if (empty == 0) return board;
+
+        int target = random.nextInt(empty);
+        long exponent = random.nextDouble() < 0.9 ? 1 : 2;
+        for (int i = 0; i < 16; i++) {
+            if (((board >>> (4 * i)) & 0xF) == 0 && target-- == 0) {
+                return board | (exponent << (4 * i));
+            }
+        }
+        return board;
+    }
+
+    /* ================= REST BOUNDARY CONVERSION ================= */
+
+    public static long fromArray(int[][] cells) {
+        long board = 0;
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                int v = cells[r][c];
+                if (v > 0) {
+                    int e = Math.min(31 - Integer.numberOfLeadingZeros(v), MAX_EXPONENT);
+                    board |= (long) e << (4 * (r * 4 + c));
+                }
+            }
+        }
+        return board;
+    }
+
+    public static int[][] toArray(long board) {
+        int[][] cells = new int[4][4];
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                int e = exponentAt(board, r, c);
+                cells[r][c] = e == 0 ? 0 : 1 << e;
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.game2048.backend.service;
+
+/**
+ * A session tried to open more boards than game.session.max-boards-per-session allows.
+ */
+public class BoardLimitExceededException extends RuntimeException {
+
+    public BoardLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.game2048.backend.service;
+
+import java.util.Locale;
+
+/**
+ * One board of a session: the game in progress plus the board's AI settings, which survive
+ * "new game" but go away with the board.
+ *
+ * Kept small because idle boards dominate the heap: the grid is a packed long, flags share a
+ * byte, the suggested move and algorithm are stored as indices, and usernames are interned so
+ * boards of the same player share one String. Interning rather than an int id table: the reference
+ * costs the same 4 bytes, and the JVM drops names no board uses anymore, where a global id table
+ * would keep every name ever seen.
+ *
+ * Not thread-safe on its own: GameService holds the board's monitor (synchronized on the state)
+ * for every read and transition, and uses version to detect moves made while it searched.
+ */
+final class BoardState {
+
+    /**
+     * Approximate retained size of one board: this object (56 bytes with compressed oops) plus
+     * its entry in the session's board map.
+     */
+    static final int ESTIMATED_BYTES = 56 + 32 + 8;
+
+    private static final int GAME_OVER = 1;
+    private static final int AI_STARTED = 1 << 1;
+
+    private static final byte NONE = -1;
+
+    long board;
+    int score;
+    int hintsUsed;
+    int version;   // incremented by every move and new game
+    private String username;
+    private byte flags;
+    private byte suggestedMove = NONE;   // Bitboard direction
+    private byte lastAlgorithm = NONE;   // index into AiAlgorithms.ALGORITHMS
+    private String otherAlgorithm;       // name of the last algorithm when it is not in that list
+
+    // AI settings; 0 = use the defaults
+    private byte aiDepth;
+    private byte maxChanceCells;
+    private float probabilityCutoff;
+
+    // Only set while the board has speculative hints enabled
+    private HintSpeculator.Speculation speculation;
+
+    BoardState(String username) {
+        reset(username);
+    }
+
+    /**
+     * Start a fresh game on this board, keeping its AI settings.
+     */
+    void reset(String username) {
+        board = 0L;
+        score = 0;
+        hintsUsed = 0;
+        flags = 0;
+        version++;
+        suggestedMove = NONE;
+        lastAlgorithm = NONE;
+        otherAlgorithm = null;
+        setUsername(username);
+    }
+
+    String getUsername() {
+        return username;
+    }
+
+    void setUsername(String username) {
+        this.username = username != null && !username.isEmpty() ? username.intern() : "Guest";
+    }
+
+    boolean isGameOver() {
+        return (flags & GAME_OVER) != 0;
+    }
+
+    void setGameOver() {
+        flags |= GAME_OVER;
+    }
+
+    boolean isAiStarted() {
+        return (flags & AI_STARTED) != 0;
+    }
+
+    void setAiStarted() {
+        flags |= AI_STARTED;
+    }
+
+    /**
+     * The move last suggested by a hint, or null.
+     */
+    String getSuggestedMove() {
+        return suggestedMove == NONE ? null : Bitboard.MOVE_NAMES[suggestedMove];
+    }
+
+    void setSuggestedMove(String move) {
+        suggestedMove = move == null ? NONE : (byte) Bitboard.directionOf(move);
+    }
+
+    /**
+     * The algorithm that last played a move on this board, or null.
+     */
+    String getLastAlgorithm() {
+        return lastAlgorithm == NONE ? otherAlgorithm : AiAlgorithms.ALGORITHMS.get(lastAlgorithm);
+    }
+
+    /**
+     * Unknown names are searched with expectimax but still recorded under the name the client sent.
+     */
+    void setLastAlgorithm(String algorithm) {
+        String name = algorithm != null ? algorithm.toUpperCase(Locale.ROOT) : null;
+        int index = name != null ? AiAlgorithms.ALGORITHMS.indexOf(name) : -1;
+        lastAlgorithm = (byte) index;
+        otherAlgorithm = index < 0 ? name : null;
+    }
+
+    int getAiDepth() {
+        return aiDepth;
+    }
+
+    void setAiDepth(int depth) {
+        aiDepth = (byte) depth;
+    }
+
+    double getProbabilityCutoff() {
+        return probabilityCutoff;
+    }
+
+    int getMaxChanceCells() {
+        return maxChanceCells;
+    }
+
+    void setChanceLimits(double probabilityCutoff, int maxChanceCells) {
+        this.probabilityCutoff = (float) Math.max(0, probabilityCutoff);
+        // A board has 16 cells; larger limits behave the same as 16
+        this.maxChanceCells = (byte) Math.max(0, Math.min(maxChanceCells, 16));
+    }
+
+    HintSpeculator.Speculation getSpeculation() {
+        return speculation;
+    }
+
+    void setSpeculation(HintSpeculator.Speculation speculation) {
+        this.speculation = speculation;
+    }
+}
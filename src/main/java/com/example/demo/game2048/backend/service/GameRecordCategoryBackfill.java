@@ -0,0 +1,54 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * One-off migration for rows written before game_records had origin/category columns. Runs at
+ * startup ahead of the caches; each UPDATE touches at most chunkSize rows of one game mode, so the
+ * table is never locked for long. Does nothing once every row is filled in.
+ */
+@Component
+public class GameRecordCategoryBackfill {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${game.persistence.backfill-chunk-size:5000}")
+    private int chunkSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfill() {
+        try {
+            List<String> modes = jdbcTemplate.queryForList(
+                    "SELECT DISTINCT game_mode FROM game_records WHERE category IS NULL", String.class);
+            int chunk = Math.max(1, chunkSize);
+            long total = 0;
+            for (String mode : modes) {
+                int updated;
+                do {
+                    updated = jdbcTemplate.update(
+                            "UPDATE game_records SET origin = ?, category = ? " +
+                                    "WHERE category IS NULL AND game_mode = ? LIMIT ?",
+                            GameRecord.originOf(mode), GameRecord.categoryOf(mode), mode, chunk);
+                    total += updated;
+                } while (updated == chunk);
+            }
+            if (total > 0) {
+                System.out.println("Backfilled origin/category for " + total + " game records");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("Category backfill failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for finished games. Requests only enqueue; a background thread writes the
+ * records in batches through GameRecordWriter, retrying failed batches.
+ *
+ * Records that cannot reach the database (buffer full, retries exhausted, shutdown with the database
+ * down) are appended to a local spill file, which is replayed on startup and after the next
+ * successful flush.
+ *
+ * Every write hands GameRecordWriter at most one batch, which it commits in a single transaction,
+ * so a failed write left nothing behind and retrying it cannot duplicate rows.
+ */
+@Component
+public class GameRecordQueue {
+
+    @Autowired
+    private GameRecordWriter recordWriter;
+
+    private final BlockingQueue<GameRecord> buffer;
+    private final Path spillFile;
+    private final Path rejectedFile;
+    private final long flushIntervalMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+
+    private final Object spillLock = new Object();
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong rejectedLines = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+    private volatile long maxFlushNanos;
+
+    public GameRecordQueue(@Value("${game.persistence.queue-capacity:10000}") int capacity,
+                           @Value("${game.persistence.spill-file:data/game-records.spill}") String spillFile,
+                           @Value("${game.persistence.flush-interval-ms:500}") long flushIntervalMs,
+                           @Value("${game.persistence.max-retries:3}") int maxRetries,
+                           @Value("${game.persistence.retry-backoff-ms:1000}") long retryBackoffMs) {
+        this.buffer = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.spillFile = Paths.get(spillFile);
+        this.rejectedFile = Paths.get(spillFile + ".rejected");
+        this.flushIntervalMs = Math.max(1, flushIntervalMs);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.retryBackoffMs = Math.max(0, retryBackoffMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "game-record-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Queue a finished game for writing. Never blocks: when the buffer is full the record is spilled.
+     */
+    public void enqueue(GameRecord record) {
+        if (record.getCreatedAt() == null) {
+            record.setCreatedAt(LocalDateTime.now());
+        }
+        enqueued.incrementAndGet();
+        if (!running || !buffer.offer(record)) {
+            spill(List.of(record));
+        }
+    }
+
+    private void flushLoop() {
+        replaySpill();
+        List<GameRecord> batch = new ArrayList<>(recordWriter.getBatchSize());
+        while (running) {
+            try {
+                GameRecord first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                buffer.drainTo(batch, recordWriter.getBatchSize() - 1);
+                if (writeWithRetry(batch)) {
+                    replaySpill();
+                } else {
+                    spill(batch);
+                }
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Shutting down in the middle of a batch: one last attempt, then keep it on disk
+                if (!batch.isEmpty() && !write(batch)) {
+                    spill(batch);
+                }
+                break;
+            }
+        }
+    }
+
+    private boolean writeWithRetry(List<GameRecord> batch) throws InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            if (write(batch)) return true;
+            if (attempt >= maxRetries || !running) return false;
+            Thread.sleep(retryBackoffMs * (1L << Math.min(attempt, 5)));
+        }
+    }
+
+    private boolean write(List<GameRecord> batch) {
+        long start = System.nanoTime();
+        try {
+            recordWriter.saveAll(batch);
+        } catch (RuntimeException e) {
+            failedAttempts.incrementAndGet();
+            System.out.println("Game record flush of " + batch.size() + " records failed: " + e.getMessage());
+            return false;
+        }
+        long elapsed = System.nanoTime() - start;
+        lastFlushNanos = elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        totalFlushNanos.addAndGet(elapsed);
+        flushes.incrementAndGet();
+        flushed.addAndGet(batch.size());
+        return true;
+    }
+
+    /**
+     * Stop the flusher and write whatever is still buffered; anything the database refuses is spilled.
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        List<GameRecord> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += recordWriter.getBatchSize()) {
+            List<GameRecord> batch = rest.subList(from, Math.min(from + recordWriter.getBatchSize(), rest.size()));
+            if (!write(batch)) {
+                spill(batch);
+            }
+        }
+        System.out.println("Game record queue drained: " + rest.size() + " records on shutdown");
+    }
+
+    /* ================= SPILL FILE ================= */
+
+    private void spill(List<GameRecord> records) {
+        synchronized (spillLock) {
+            try {
+                Path parent = spillFile.toAbsolutePath().getParent();
+                if (parent != null) Files.createDirectories(parent);
+                try (BufferedWriter out = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    for (GameRecord record : records) {
+                        out.write(toLine(record));
+                        out.newLine();
+                    }
+                }
+                spilled.addAndGet(records.size());
+            } catch (IOException e) {
+                System.out.println("Could not spill " + records.size() + " game records: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Write the spill file back in pieces of at most one batch, working from the end of the file:
+     * each piece commits in a single transaction, and the file is truncated right after, so a
+     * failure later on never replays a committed piece again. Lines that cannot be parsed are moved
+     * to the rejected file instead of blocking the replay.
+     */
+    private void replaySpill() {
+        synchronized (spillLock) {
+            if (!Files.exists(spillFile)) return;
+            try {
+                byte[] content = Files.readAllBytes(spillFile);
+                List<Integer> lineStarts = new ArrayList<>();
+                for (int i = 0; i < content.length; i++) {
+                    if (i == 0 || content[i - 1] == '\n') lineStarts.add(i);
+                }
+
+                int total = 0;
+                int end = lineStarts.size();
+                while (end > 0) {
+                    List<GameRecord> piece = new ArrayList<>();
+                    List<String> rejected = new ArrayList<>();
+                    int start = end;
+                    while (start > 0 && piece.size() < recordWriter.getBatchSize()) {
+                        start--;
+                        int from = lineStarts.get(start);
+                        int to = start + 1 < lineStarts.size() ? lineStarts.get(start + 1) : content.length;
+                        String line = new String(content, from, to - from, StandardCharsets.UTF_8).strip();
+                        if (line.isEmpty()) continue;
+                        try {
+                            piece.add(fromLine(line));
+                        } catch (RuntimeException e) {
+                            rejected.add(line);
+                        }
+                    }
+
+                    Collections.reverse(piece); // collected back to front; insert in spill order
+                    if (!piece.isEmpty() && !write(piece)) break; // keep the rest, retry after the next flush
+                    if (!rejected.isEmpty()) reject(rejected);
+                    try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.WRITE)) {
+                        channel.truncate(lineStarts.get(start));
+                    }
+                    total += piece.size();
+                    replayed.addAndGet(piece.size());
+                    end = start;
+                }
+
+                if (end == 0) {
+                    Files.delete(spillFile);
+                }
+                if (total > 0) {
+                    System.out.println("Replayed " + total + " spilled game records");
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Could not replay spilled game records: " + e.getMessage());
+            }
+        }
+    }
+
+    private void reject(List<String> lines) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(rejectedFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (String line : lines) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+        rejectedLines.addAndGet(lines.size());
+        System.out.println("Moved " + lines.size() + " unreadable spilled game records to " + rejectedFile);
+    }
+
+    private static String toLine(GameRecord record) {
+        return record.getCreatedAt() + "\t" + encode(record.getUsername()) + "\t" + encode(record.getGameMode())
+                + "\t" + record.getScore() + "\t" + record.getMaxTile() + "\t" + record.getHintsUsed();
+    }
+
+    private static GameRecord fromLine(String line) {
+        String[] f = line.split("\t");
+        GameRecord record = new GameRecord();
+        record.setCreatedAt(LocalDateTime.parse(f[0]));
+        record.setUsername(decode(f[1]));
+        record.setGameMode(decode(f[2]));
+        record.setScore(Integer.parseInt(f[3]));
+        record.setMaxTile(Integer.parseInt(f[4]));
+        record.setHintsUsed(Integer.parseInt(f[5]));
+        return record;
+    }
+
+    private static String encode(String s) {
+        return URLEncoder.encode(s, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String s) {
+        return URLDecoder.decode(s, StandardCharsets.UTF_8);
+    }
+
+    public Map<String, Object> getStats() {
+        long flushCount = flushes.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queueDepth", buffer.size());
+        stats.put("queueCapacity", buffer.size() + buffer.remainingCapacity());
+        stats.put("enqueued", enqueued.get());
+        stats.put("flushed", flushed.get());
+        stats.put("flushes", flushCount);
+        stats.put("failedFlushAttempts", failedAttempts.get());
+        stats.put("spilled", spilled.get());
+        stats.put("replayed", replayed.get());
+        stats.put("rejectedSpillLines", rejectedLines.get());
+        stats.put("spillFilePending", Files.exists(spillFile));
+        stats.put("lastFlushMs", lastFlushNanos / 1e6);
+        stats.put("maxFlushMs", maxFlushNanos / 1e6);
+        stats.put("avgFlushMs", flushCount == 0 ? 0.0 : totalFlushNanos.get() / 1e6 / flushCount);
+        return stats;
+    }
+}
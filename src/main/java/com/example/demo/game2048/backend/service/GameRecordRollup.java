@@ -0,0 +1,136 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+import com.example.demo.game2048.backend.repository.GameRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Folds old game_records of one origin (BATCH by default) into game_record_summaries and deletes
+ * them. Each chunk is aggregated, merged into the summaries and deleted in one transaction, so a
+ * crash never counts a game twice or loses it.
+ *
+ * Games on a leaderboard (top 10 of their mode or overall) stay as raw rows.
+ */
+@Service
+public class GameRecordRollup {
+
+    private static final String CHUNK_FILTER =
+            "origin = :origin AND created_at < :cutoff AND id <= :lastId AND id NOT IN (:keep)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbc;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private GameRecordRepository repository;
+
+    // Raw rows older than this are rolled up
+    @Value("${game.rollup.min-age-days:7}")
+    private int minAgeDays;
+
+    @Value("${game.rollup.origin:BATCH}")
+    private String origin;
+
+    // Raw rows folded per transaction
+    @Value("${game.rollup.chunk-size:10000}")
+    private int chunkSize;
+
+    /**
+     * Roll up everything old enough; returns the number of raw rows removed.
+     */
+    public long rollup() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(Math.max(0, minAgeDays));
+        List<Long> keep = leaderboardIds();
+        int chunk = Math.max(1, chunkSize);
+
+        long total = 0;
+        while (true) {
+            Long rolled = transactionTemplate.execute(status -> rollupChunk(cutoff, keep, chunk));
+            if (rolled == null || rolled == 0) break;
+            total += rolled;
+        }
+        return total;
+    }
+
+    private long rollupChunk(LocalDateTime cutoff, List<Long> keep, int chunk) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("origin", origin)
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("keep", keep)
+                .addValue("limit", chunk);
+
+        // Upper id of this chunk
+        List<Long> ids = jdbc.queryForList(
+                "SELECT id FROM game_records WHERE origin = :origin AND created_at < :cutoff AND id NOT IN (:keep) " +
+                        "ORDER BY id LIMIT :limit", params, Long.class);
+        if (ids.isEmpty()) return 0;
+        params.addValue("lastId", ids.get(ids.size() - 1));
+
+        List<Map<String, Object>> groups = jdbc.queryForList(
+                "SELECT DATE(created_at) AS summary_day, username, game_mode, max_tile, COUNT(*) AS game_count, " +
+                        "SUM(score) AS score_sum, SUM(CAST(score AS DOUBLE) * score) AS score_sum_squares, " +
+                        "MAX(score) AS score_max, SUM(hints_used) AS hints_sum " +
+                        "FROM game_records WHERE " + CHUNK_FILTER + " " +
+                        "GROUP BY DATE(created_at), username, game_mode, max_tile", params);
+        for (Map<String, Object> group : groups) {
+            mergeIntoSummary(group);
+        }
+
+        return jdbc.update("DELETE FROM game_records WHERE " + CHUNK_FILTER, params);
+    }
+
+    private void mergeIntoSummary(Map<String, Object> group) {
+        String gameMode = (String) group.get("game_mode");
+        MapSqlParameterSource row = new MapSqlParameterSource()
+                .addValue("day", group.get("summary_day"))
+                .addValue("username", group.get("username"))
+                .addValue("gameMode", gameMode)
+                .addValue("origin", GameRecord.originOf(gameMode))
+                .addValue("category", GameRecord.categoryOf(gameMode))
+                .addValue("maxTile", ((Number) group.get("max_tile")).intValue())
+                .addValue("count", ((Number) group.get("game_count")).longValue())
+                .addValue("scoreSum", ((Number) group.get("score_sum")).longValue())
+                .addValue("scoreSumSquares", ((Number) group.get("score_sum_squares")).doubleValue())
+                .addValue("scoreMax", ((Number) group.get("score_max")).intValue())
+                .addValue("hintsSum", ((Number) group.get("hints_sum")).longValue());
+
+        int updated = jdbc.update(
+                "UPDATE game_record_summaries SET game_count = game_count + :count, score_sum = score_sum + :scoreSum, " +
+                        "score_sum_squares = score_sum_squares + :scoreSumSquares, " +
+                        "score_max = GREATEST(score_max, :scoreMax), hints_sum = hints_sum + :hintsSum " +
+                        "WHERE summary_day = :day AND username = :username AND game_mode = :gameMode AND max_tile = :maxTile",
+                row);
+        if (updated == 0) {
+            jdbc.update(
+                    "INSERT INTO game_record_summaries (summary_day, username, game_mode, origin, category, max_tile, " +
+                            "game_count, score_sum, score_sum_squares, score_max, hints_sum) VALUES (:day, :username, " +
+                            ":gameMode, :origin, :category, :maxTile, :count, :scoreSum, :scoreSumSquares, :scoreMax, :hintsSum)",
+                    row);
+        }
+    }
+
+    // Top 10 overall and per game mode of this origin; -1 keeps NOT IN valid when empty
+    private List<Long> leaderboardIds() {
+        Set<Long> keep = new HashSet<>();
+        keep.add(-1L);
+        repository.findTopAllGames().forEach(r -> keep.add(r.getId()));
+        for (Map<String, Object> row : repository.getGameModeStats()) {
+            String mode = (String) row.get("mode");
+            if (origin.equals(GameRecord.originOf(mode))) {
+                repository.findTopByGameMode(mode).forEach(r -> keep.add(r.getId()));
+            }
+        }
+        return new ArrayList<>(keep);
+    }
+}
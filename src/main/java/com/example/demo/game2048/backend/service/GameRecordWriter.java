@@ -0,0 +1,130 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk insert path for game records. GameRecord ids are IDENTITY-generated, so Hibernate sends one
+ * INSERT per save; this writes a whole chunk of records with a single multi-row INSERT instead.
+ */
+@Component
+public class GameRecordWriter {
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO game_records (username, game_mode, origin, category, score, max_tile, hints_used, created_at) VALUES ";
+    private static final String ROW = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int COLUMNS = 8;
+    // MySQL caps a prepared statement at 65,535 placeholders
+    private static final int MAX_ROWS = 65535 / COLUMNS;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserStatsService userStatsService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final int batchSize;
+    private final String fullChunkSql;
+
+    public GameRecordWriter(@Value("${game.persistence.batch-size:1000}") int batchSize) {
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_ROWS));
+        this.fullChunkSql = insertSql(this.batchSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Insert all records, batchSize rows per statement. Each chunk commits together with its
+     * user_stats update, then a GameRecordsSavedEvent is published for it. Returns the number of
+     * rows written.
+     */
+    public int saveAll(List<GameRecord> records) {
+        int written = 0;
+        for (int from = 0; from < records.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, records.size());
+            written += insertChunk(records.subList(from, to));
+        }
+        return written;
+    }
+
+    private int insertChunk(List<GameRecord> chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        Object[] args = new Object[chunk.size() * COLUMNS];
+        int i = 0;
+        for (GameRecord record : chunk) {
+            if (record.getCreatedAt() == null) {
+                record.setCreatedAt(now);
+            }
+            args[i++] = record.getUsername();
+            args[i++] = record.getGameMode();
+            args[i++] = GameRecord.originOf(record.getGameMode());
+            args[i++] = GameRecord.categoryOf(record.getGameMode());
+            args[i++] = record.getScore();
+            args[i++] = record.getMaxTile();
+            args[i++] = record.getHintsUsed();
+            args[i++] = record.getCreatedAt();
+        }
+        String sql = chunk.size() == batchSize ? fullChunkSql : insertSql(chunk.size());
+        Integer rows = transactionTemplate.execute(status -> {
+            KeyHolder keys = new GeneratedKeyHolder();
+            int inserted = jdbcTemplate.update(con -> {
+                PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+                new ArgumentPreparedStatementSetter(args).setValues(ps);
+                return ps;
+            }, keys);
+            assignIds(chunk, keys.getKeyList());
+            userStatsService.apply(chunk);
+            return inserted;
+        });
+        // The chunk is committed: a failing listener must not make the caller retry the insert
+        try {
+            eventPublisher.publishEvent(new GameRecordsSavedEvent(List.copyOf(chunk)));
+        } catch (RuntimeException e) {
+            System.out.println("GameRecordsSavedEvent listener failed for " + chunk.size() + " records: " + e.getMessage());
+        }
+        return rows != null ? rows : 0;
+    }
+
+    // Listeners of GameRecordsSavedEvent tell saved records apart by id; the driver returns one key per row
+    private static void assignIds(List<GameRecord> chunk, List<Map<String, Object>> keys) {
+        if (keys.size() != chunk.size()) return;
+        for (int i = 0; i < chunk.size(); i++) {
+            Object id = keys.get(i).values().stream().findFirst().orElse(null);
+            if (id instanceof Number n) {
+                chunk.get(i).setId(n.longValue());
+            }
+        }
+    }
+
+    private static String insertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_PREFIX.length() + rows * (ROW.length() + 2));
+        sql.append(INSERT_PREFIX);
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) sql.append(", ");
+            sql.append(ROW);
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+
+import java.util.List;
+
+/**
+ * Published by GameRecordWriter after records were committed to game_records.
+ */
+public record GameRecordsSavedEvent(List<GameRecord> records) {}
@@ -2,367 +2,434 @@ package com.example.demo.game2048.backend.service;
 
 import com.example.demo.game2048.backend.dto.GameStateDTO;
 import com.example.demo.game2048.backend.dto.BatchResultDTO;
+import com.example.demo.game2048.backend.dto.MoveSequenceResultDTO;
 import com.example.demo.game2048.backend.entity.GameRecord;
-import com.example.demo.game2048.backend.repository.GameRecordRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class GameService {
 
-    // Key: sessionId:boardId -> BoardState
-    private final Map<String, BoardState> boards = new ConcurrentHashMap<>();
-    private final Map<String, Integer> boardDepths = new ConcurrentHashMap<>();
+    // AI moves searched again at most this often when other requests keep moving the board
+    private static final int MAX_AI_MOVE_ATTEMPTS = 3;
+
+    private record AiMove(String move, int depth, int scoreDelta) {}
+
     private final Random random = new Random();
-    private int defaultAiDepth = 3;
+    private volatile int defaultAiDepth = 3;
 
     @Autowired
     private AiAlgorithms aiAlgorithms;
 
     @Autowired
-    private GameRecordRepository repository;
+    private GameRecordQueue recordQueue;
 
     @Autowired
     private SessionService sessionService;
 
-    private static class BoardState {
-        int[][] board;
-        int score;
-        boolean gameOver;
-        String currentUsername;
-        int hintsUsed;
-        boolean isAiStarted;
-        String lastSuggestedMove;
-        String lastSuggester;
-        String lastUsedAlgorithm;
-
-        BoardState(String username) {
-            this.board = new int[GameLogic.BOARD_SIZE][GameLogic.BOARD_SIZE];
-            this.score = 0;
-            this.gameOver = false;
-            this.currentUsername = username != null && !username.isEmpty() ? username : "Guest";
-            this.hintsUsed = 0;
-            this.isAiStarted = false;
-            this.lastSuggestedMove = null;
-            this.lastSuggester = null;
-            this.lastUsedAlgorithm = null;
-        }
-    }
+    @Autowired
+    private BatchSimulator batchSimulator;
 
-    /**
-     * Generate board key from sessionId and boardId
-     */
-    private String getBoardKey(String sessionId, int boardId) {
-        return sessionId + ":" + boardId;
-    }
+    @Autowired
+    private HintSpeculator hintSpeculator;
+
+    // Upper bound for client-supplied AI time budgets
+    @Value("${game.ai.max-time-budget-ms:5000}")
+    private long maxTimeBudgetMs;
+
+    // Upper bound for directions plus AI moves in one move-sequence request
+    @Value("${game.moves.max-sequence-length:10000}")
+    private int maxSequenceLength;
 
     /**
      * Get or create board state for a specific session and board
      */
-    private BoardState getBoard(String sessionId, int boardId) {
-        String boardKey = getBoardKey(sessionId, boardId);
-
-        return boards.computeIfAbsent(boardKey, key -> {
+    private BoardState getBoard(GameSession session, int boardId) {
+        return sessionService.getOrCreateBoard(session, boardId, () -> {
             BoardState state = new BoardState("Guest");
             addRandomTile(state);
             addRandomTile(state);
-            sessionService.registerBoard(sessionId, boardKey);
             return state;
         });
     }
 
     public void startNewGame(String sessionId, String username, int boardId) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
-        }
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
 
-        String boardKey = getBoardKey(sessionId, boardId);
-        BoardState state = new BoardState(username);
-        addRandomTile(state);
-        addRandomTile(state);
-        boards.put(boardKey, state);
-
-        sessionService.registerBoard(sessionId, boardKey);
-        sessionService.touchSession(sessionId);
+        synchronized (state) {
+            hintSpeculator.cancel(state);
+            state.reset(username);
+            addRandomTile(state);
+            addRandomTile(state);
+            speculateNextHint(state);
+        }
     }
 
     public void move(String sessionId, String direction, int boardId) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
-        }
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
 
-        BoardState state = getBoard(sessionId, boardId);
-        sessionService.touchSession(sessionId);
-
-        if (state.gameOver) {
-            return;
-        }
+        synchronized (state) {
+            if (state.isGameOver()) {
+                return;
+            }
 
-        GameLogic.BoardMoveResult result;
-        switch (direction) {
-            case "UP" -> result = GameLogic.moveUp(state.board);
-            case "DOWN" -> result = GameLogic.moveDown(state.board);
-            case "LEFT" -> result = GameLogic.moveLeft(state.board);
-            case "RIGHT" -> result = GameLogic.moveRight(state.board);
-            default -> {
+            int dir = Bitboard.directionOf(direction);
+            if (dir < 0) {
                 System.out.println("Invalid direction: " + direction);
                 return;
             }
+
+            if (applyMove(state, dir, sessionId, boardId)) {
+                speculateNextHint(state);
+            }
+            state.setSuggestedMove(null);
         }
+    }
 
-        if (result.moved()) {
-            state.board = result.board();
-            state.score += result.score();
-            addRandomTile(state);
+    /**
+     * Slide the board and spawn a tile, ending the game when no move is left. The caller holds the
+     * board's monitor. Returns false when the move does not change the board.
+     */
+    private boolean applyMove(BoardState state, int dir, String sessionId, int boardId) {
+        long next = Bitboard.move(state.board, dir);
+        if (next == state.board) {
+            return false;
+        }
 
-            if (GameLogic.isGameOver(state.board)) {
-                state.gameOver = true;
-                saveGame(state);
-                System.out.println("Session " + sessionId + " Board " + boardId + " - Game Over! Final Score: " + state.score);
-            }
+        state.score += Bitboard.moveScore(state.board, dir);
+        state.board = next;
+        addRandomTile(state);
+        state.version++;
+
+        if (Bitboard.isGameOver(state.board)) {
+            state.setGameOver();
+            saveGame(state);
+            System.out.println("Session " + sessionId + " Board " + boardId + " - Game Over! Final Score: " + state.score);
         }
+        return true;
+    }
 
-        state.lastSuggestedMove = null;
-        state.lastSuggester = null;
+    // Caller holds the board's monitor; no-op unless the board opted in and has asked for a hint
+    private void speculateNextHint(BoardState state) {
+        HintSpeculator.Speculation speculation = state.getSpeculation();
+        if (speculation == null || speculation.algorithm == null || state.isGameOver()) {
+            return;
+        }
+        hintSpeculator.speculate(state, searchContext(state, speculation.algorithm, speculation.timeBudgetMs));
     }
 
     private void addRandomTile(BoardState state) {
-        List<int[]> emptyCells = GameLogic.getEmptyCells(state.board);
-        if (!emptyCells.isEmpty()) {
-            int[] cell = emptyCells.get(random.nextInt(emptyCells.size()));
-            state.board[cell[0]][cell[1]] = random.nextDouble() < 0.9 ? 2 : 4;
-        }
+        state.board = Bitboard.spawnTile(state.board, random);
     }
 
     public GameStateDTO getGameState(String sessionId, int boardId) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
-        }
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
 
-        BoardState state = getBoard(sessionId, boardId);
-        sessionService.touchSession(sessionId);
+        synchronized (state) {
+            return toDTO(state);
+        }
+    }
 
-       
+    // Caller holds the board's monitor, so the snapshot is consistent
+    private static GameStateDTO toDTO(BoardState state) {
         return new GameStateDTO(
-                state.board,
+                Bitboard.toArray(state.board),
                 state.score,
-                state.gameOver,
-                state.lastSuggestedMove, 
-                state.currentUsername
+                state.isGameOver(),
+                state.getSuggestedMove(),
+                state.getUsername()
         );
     }
 
-    public GameStateDTO getHint(String sessionId, int boardId, String algorithm) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
+    public GameStateDTO getHint(String sessionId, int boardId, String algorithm, long timeBudgetMs) {
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+
+        long board;
+        int version;
+        SearchContext ctx;
+        synchronized (state) {
+            if (state.isGameOver()) {
+                state.setSuggestedMove(null);
+                return toDTO(state);
+            }
+            state.hintsUsed++;
+            SearchResult ready = hintSpeculator.takeReady(state, algorithm, timeBudgetMs);
+            if (ready != null) {
+                state.setSuggestedMove(ready.move());
+                GameStateDTO dto = toDTO(state);
+                dto.setSearchDepth(ready.depth());
+                return dto;
+            }
+            board = state.board;
+            version = state.version;
+            ctx = searchContext(state, algorithm, timeBudgetMs);
         }
 
-        BoardState state = getBoard(sessionId, boardId);
-        sessionService.touchSession(sessionId);
+        // Searched without holding the board, so a slow hint never blocks moves
+        SearchResult result = aiAlgorithms.search(board, ctx);
 
-        if (state.gameOver) {
-            state.lastSuggestedMove = null;
-            state.lastSuggester = null;
-        } else {
-            state.hintsUsed++;
-            String boardKey = getBoardKey(sessionId, boardId);
-            int depth = boardDepths.getOrDefault(boardKey, defaultAiDepth);
-            aiAlgorithms.setDepth(depth);
-            String bestMove = aiAlgorithms.bestMove(state.board, algorithm);
-            if (bestMove != null) {
-                state.lastSuggestedMove = bestMove;
-                state.lastSuggester = algorithm.toUpperCase() + " AI";
-            } else {
-                state.lastSuggestedMove = null;
-                state.lastSuggester = null;
+        synchronized (state) {
+            // A hint for a position that has been moved on from is of no use
+            if (state.version == version) {
+                state.setSuggestedMove(result.move());
             }
+            GameStateDTO dto = toDTO(state);
+            dto.setSearchDepth(result.depth());
+            return dto;
         }
-        return getGameState(sessionId, boardId);
     }
 
-    public String getAiMove(String sessionId, int boardId, String algorithm) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
+    /**
+     * Let the AI play one move and return the resulting state, with the move and search depth
+     * (both null when no move was played).
+     */
+    public GameStateDTO playAiMove(String sessionId, int boardId, String algorithm, long timeBudgetMs) {
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+
+        AiMove played = aiStep(state, sessionId, boardId, algorithm, timeBudgetMs);
+        synchronized (state) {
+            if (played == null) {
+                return noAiMove(state);
+            }
+            GameStateDTO dto = toDTO(state);
+            dto.setSuggestedMove(played.move());
+            dto.setSearchDepth(played.depth());
+            return dto;
         }
+    }
 
-        BoardState state = getBoard(sessionId, boardId);
-        sessionService.touchSession(sessionId);
-
-        if (state.gameOver) {
-            System.out.println("Session " + sessionId + " Board " + boardId + " - Game is already over");
-            return null;
+    /**
+     * Apply the given directions, then let the AI play up to aiMoves more, stopping early when the
+     * game ends. The directions are applied under one hold of the board's monitor; every AI move
+     * is searched outside it.
+     *
+     * @throws IllegalArgumentException for an unknown direction or more than
+     *         game.moves.max-sequence-length moves
+     */
+    public MoveSequenceResultDTO playMoves(String sessionId, int boardId, List<String> directions,
+                                           int aiMoves, String algorithm, long timeBudgetMs) {
+        int count = (directions != null ? directions.size() : 0) + Math.max(0, aiMoves);
+        if (count > maxSequenceLength) {
+            throw new IllegalArgumentException("At most " + maxSequenceLength + " moves per request");
+        }
+        List<String> normalized = new ArrayList<>(directions != null ? directions.size() : 0);
+        if (directions != null) {
+            for (String direction : directions) {
+                String name = direction != null ? direction.toUpperCase(Locale.ROOT) : null;
+                if (Bitboard.directionOf(name) < 0) {
+                    throw new IllegalArgumentException("Invalid direction: " + direction);
+                }
+                normalized.add(name);
+            }
         }
 
-        state.lastUsedAlgorithm = algorithm;
-
-        String boardKey = getBoardKey(sessionId, boardId);
-        int depth = boardDepths.getOrDefault(boardKey, defaultAiDepth);
-        aiAlgorithms.setDepth(depth);
-        String bestMove = aiAlgorithms.bestMove(state.board, algorithm);
-
-        if (bestMove == null) {
-            System.out.println("Session " + sessionId + " Board " + boardId + " - No valid moves available");
-            return null;
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+
+        List<String> moves = new ArrayList<>();
+        List<Integer> scoreDeltas = new ArrayList<>();
+        int applied = 0;
+
+        if (!normalized.isEmpty()) {
+            synchronized (state) {
+                for (String direction : normalized) {
+                    if (state.isGameOver()) break;
+                    int dir = Bitboard.directionOf(direction);
+                    int before = state.score;
+                    if (applyMove(state, dir, sessionId, boardId)) {
+                        applied++;
+                    }
+                    moves.add(direction);
+                    scoreDeltas.add(state.score - before);
+                }
+                if (applied > 0) {
+                    speculateNextHint(state);
+                }
+                state.setSuggestedMove(null);
+            }
         }
 
-        GameLogic.BoardMoveResult testResult = switch (bestMove) {
-            case "UP" -> GameLogic.moveUp(state.board);
-            case "DOWN" -> GameLogic.moveDown(state.board);
-            case "LEFT" -> GameLogic.moveLeft(state.board);
-            case "RIGHT" -> GameLogic.moveRight(state.board);
-            default -> new GameLogic.BoardMoveResult(state.board, 0, false);
-        };
-
-        if (!testResult.moved()) {
-            System.out.println("Session " + sessionId + " Board " + boardId + " - AI suggested invalid move: " + bestMove);
-            return null;
+        for (int i = 0; i < aiMoves; i++) {
+            AiMove played = aiStep(state, sessionId, boardId, algorithm, timeBudgetMs);
+            if (played == null) break;
+            applied++;
+            moves.add(played.move());
+            scoreDeltas.add(played.scoreDelta());
         }
 
-        System.out.println("Session " + sessionId + " Board " + boardId + " - " + algorithm + " AI suggests: " + bestMove);
-        return bestMove;
+        synchronized (state) {
+            return new MoveSequenceResultDTO(toDTO(state), moves, scoreDeltas, applied);
+        }
     }
 
-    public void markAiStarted(String sessionId, int boardId) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
+    /**
+     * Search and play one AI move. The search runs on a snapshot outside the board's monitor; if
+     * the board changed meanwhile, the result is dropped and the new position searched. Returns
+     * null when no move was played.
+     */
+    private AiMove aiStep(BoardState state, String sessionId, int boardId, String algorithm, long timeBudgetMs) {
+        for (int attempt = 0; attempt < MAX_AI_MOVE_ATTEMPTS; attempt++) {
+            long board;
+            int version;
+            SearchContext ctx;
+            synchronized (state) {
+                state.setAiStarted();
+                if (state.isGameOver()) {
+                    System.out.println("Session " + sessionId + " Board " + boardId + " - Game is already over");
+                    return null;
+                }
+                state.setLastAlgorithm(algorithm);
+                board = state.board;
+                version = state.version;
+                ctx = searchContext(state, algorithm, timeBudgetMs);
+            }
+
+            SearchResult result = aiAlgorithms.search(board, ctx);
+            String bestMove = result.move();
+            int dir = Bitboard.directionOf(bestMove);
+
+            synchronized (state) {
+                if (state.version != version) {
+                    continue;
+                }
+
+                if (bestMove == null) {
+                    System.out.println("Session " + sessionId + " Board " + boardId + " - No valid moves available");
+                    return null;
+                }
+                if (dir < 0 || !Bitboard.canMove(board, dir)) {
+                    System.out.println("Session " + sessionId + " Board " + boardId + " - AI suggested invalid move: " + bestMove);
+                    return null;
+                }
+
+                System.out.println("Session " + sessionId + " Board " + boardId + " - " + algorithm + " AI suggests: " + bestMove
+                        + " (depth " + result.depth() + ")");
+                int before = state.score;
+                applyMove(state, dir, sessionId, boardId);
+                speculateNextHint(state);
+                state.setSuggestedMove(null);
+                return new AiMove(bestMove, result.depth(), state.score - before);
+            }
         }
 
-        BoardState state = getBoard(sessionId, boardId);
-        state.isAiStarted = true;
-        sessionService.touchSession(sessionId);
+        System.out.println("Session " + sessionId + " Board " + boardId + " - board kept changing during AI search, no move played");
+        return null;
+    }
+
+    // Response of an AI move request that played nothing; never echoes an earlier hint
+    private static GameStateDTO noAiMove(BoardState state) {
+        GameStateDTO dto = toDTO(state);
+        dto.setSuggestedMove(null);
+        return dto;
     }
 
     public void setAiDepth(int depth) {
         this.defaultAiDepth = Math.max(1, Math.min(depth, 10));
-        aiAlgorithms.setDepth(this.defaultAiDepth);
     }
 
     public void setAiDepthForBoard(String sessionId, int boardId, int depth) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+        synchronized (state) {
+            state.setAiDepth(Math.max(1, Math.min(depth, 10)));
+        }
+    }
+
+    public void setChanceLimitsForBoard(String sessionId, int boardId, double probabilityCutoff, int maxChanceCells) {
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+        synchronized (state) {
+            state.setChanceLimits(probabilityCutoff, maxChanceCells);
+        }
+    }
+
+    /**
+     * Opt a board in or out of speculative hints: after each move its next hint is searched in the
+     * background, with the algorithm and time budget of its last hint request.
+     */
+    public void setSpeculativeHintsForBoard(String sessionId, int boardId, boolean enabled) {
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+        synchronized (state) {
+            if (enabled && state.getSpeculation() == null) {
+                state.setSpeculation(new HintSpeculator.Speculation());
+            } else if (!enabled) {
+                hintSpeculator.cancel(state);
+                state.setSpeculation(null);
+            }
+        }
+    }
+
+    /**
+     * Build the search parameters configured for a board (defaults when state is null); every AI
+     * call gets its own context.
+     */
+    private SearchContext searchContext(BoardState state, String algorithm) {
+        if (state == null) {
+            return SearchContext.of(algorithm, defaultAiDepth);
         }
+        int depth = state.getAiDepth() > 0 ? state.getAiDepth() : defaultAiDepth;
+        return SearchContext.of(algorithm, depth)
+                .withChanceLimits(state.getProbabilityCutoff(), state.getMaxChanceCells());
+    }
 
-        String boardKey = getBoardKey(sessionId, boardId);
-        int validDepth = Math.max(1, Math.min(depth, 10));
-        boardDepths.put(boardKey, validDepth);
-        sessionService.touchSession(sessionId);
+    /**
+     * A positive time budget replaces the board's depth setting with an anytime search.
+     */
+    private SearchContext searchContext(BoardState state, String algorithm, long timeBudgetMs) {
+        SearchContext ctx = searchContext(state, algorithm);
+        return timeBudgetMs > 0 ? ctx.withTimeBudget(Math.min(timeBudgetMs, maxTimeBudgetMs)) : ctx;
     }
 
     private void saveGame(BoardState state) {
         String gameMode;
-        if (state.isAiStarted && state.lastUsedAlgorithm != null) {
-            gameMode = "SINGLE_" + state.lastUsedAlgorithm.toUpperCase();
-        } else if (state.isAiStarted) {
+        if (state.isAiStarted() && state.getLastAlgorithm() != null) {
+            gameMode = "SINGLE_" + state.getLastAlgorithm();
+        } else if (state.isAiStarted()) {
             gameMode = "SINGLE_AI";
         } else {
             gameMode = "SINGLE_MANUAL";
         }
 
         GameRecord record = new GameRecord();
-        record.setUsername(state.currentUsername);
+        record.setUsername(state.getUsername());
         record.setGameMode(gameMode);
         record.setScore(state.score);
-        record.setMaxTile(calculateMaxTile(state.board));
+        record.setMaxTile(Bitboard.maxTile(state.board));
         record.setHintsUsed(state.hintsUsed);
-        repository.save(record);
+        recordQueue.enqueue(record);
     }
 
-    public BatchResultDTO runBatchGames(String sessionId, int count, String username, String algorithm, int boardId) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
-        }
-
-        sessionService.touchSession(sessionId);
-
-        long startTime = System.currentTimeMillis();
-        Map<Integer, Integer> stats = new HashMap<>();
-
-        String boardKey = getBoardKey(sessionId, boardId);
-        int depth = boardDepths.getOrDefault(boardKey, defaultAiDepth);
-        aiAlgorithms.setDepth(depth);
-
-        for (int i = 0; i < count; i++) {
-            int[][] tempBoard = new int[GameLogic.BOARD_SIZE][GameLogic.BOARD_SIZE];
-            int tempScore = 0;
-            addRandomTileToBoard(tempBoard);
-            addRandomTileToBoard(tempBoard);
-
-            boolean isDone = false;
-            int moveCount = 0;
-            int maxMoves = 10000;
-
-            while (!isDone && moveCount < maxMoves) {
-                String bestMove = aiAlgorithms.bestMove(tempBoard, algorithm);
-                if (bestMove == null) break;
-
-                GameLogic.BoardMoveResult res = switch (bestMove) {
-                    case "UP" -> GameLogic.moveUp(tempBoard);
-                    case "DOWN" -> GameLogic.moveDown(tempBoard);
-                    case "LEFT" -> GameLogic.moveLeft(tempBoard);
-                    case "RIGHT" -> GameLogic.moveRight(tempBoard);
-                    default -> new GameLogic.BoardMoveResult(tempBoard, 0, false);
-                };
-
-                if (res.moved()) {
-                    tempBoard = res.board();
-                    tempScore += res.score();
-                    addRandomTileToBoard(tempBoard);
-                    if (GameLogic.isGameOver(tempBoard)) {
-                        isDone = true;
-                    }
-                } else {
-                    isDone = true;
-                }
-                moveCount++;
-            }
-
-            int maxTile = calculateMaxTile(tempBoard);
-
-            GameRecord record = new GameRecord();
-            record.setUsername(username);
-            record.setGameMode("BATCH_" + algorithm.toUpperCase());
-            record.setScore(tempScore);
-            record.setMaxTile(maxTile);
-            record.setHintsUsed(0);
-            repository.save(record);
-
-            stats.put(maxTile, stats.getOrDefault(maxTile, 0) + 1);
-        }
-
-        long endTime = System.currentTimeMillis();
-        return new BatchResultDTO(stats, count, (endTime - startTime));
+    public BatchResultDTO runBatchGames(String sessionId, int count, String username, String algorithm, int boardId, Long seed) {
+        SearchContext template = batchSearchContext(sessionId, boardId, algorithm);
+        return batchSimulator.run(template, count, username, seed, BatchSimulator.ProgressListener.NONE);
     }
 
-    private void addRandomTileToBoard(int[][] targetBoard) {
-        List<int[]> emptyCells = GameLogic.getEmptyCells(targetBoard);
-        if (!emptyCells.isEmpty()) {
-            int[] cell = emptyCells.get(random.nextInt(emptyCells.size()));
-            targetBoard[cell[0]][cell[1]] = random.nextDouble() < 0.9 ? 2 : 4;
+    /**
+     * Search settings a batch for the given board would use; jobs capture them at submission.
+     */
+    public SearchContext batchSearchContext(String sessionId, int boardId, String algorithm) {
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = session.findBoard(boardId);
+        if (state == null) {
+            return searchContext(null, algorithm).withParallel(false);
         }
-    }
-
-    private int calculateMaxTile(int[][] b) {
-        int max = 0;
-        for (int[] row : b) {
-            for (int cell : row) {
-                max = Math.max(max, cell);
-            }
+        synchronized (state) {
+            return searchContext(state, algorithm).withParallel(false);
         }
-        return max;
     }
 
     public void clearBoard(String sessionId, int boardId) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
-        }
-
-        String boardKey = getBoardKey(sessionId, boardId);
-        boards.remove(boardKey);
-        boardDepths.remove(boardKey);
-        sessionService.touchSession(sessionId);
+        GameSession session = sessionService.requireSession(sessionId);
+        sessionService.removeBoard(session, boardId);
     }
 
     public void clearSessionBoards(String sessionId) {
@@ -370,21 +437,14 @@ public class GameService {
             return;
         }
 
-        Set<String> sessionBoards = sessionService.getSessionBoards(sessionId);
-        for (String boardKey : sessionBoards) {
-            boards.remove(boardKey);
-            boardDepths.remove(boardKey);
-        }
         sessionService.cleanupSession(sessionId);
     }
 
     public void updateBoardUsername(String sessionId, int boardId, String newUsername) {
-        if (!sessionService.isValidSession(sessionId)) {
-            throw new IllegalStateException("Invalid or expired session");
+        GameSession session = sessionService.requireSession(sessionId);
+        BoardState state = getBoard(session, boardId);
+        synchronized (state) {
+            state.setUsername(newUsername);
         }
-
-        BoardState state = getBoard(sessionId, boardId);
-        state.currentUsername = newUsername != null && !newUsername.isEmpty() ? newUsername : "Guest";
-        sessionService.touchSession(sessionId);
     }
 }
@@ -0,0 +1,44 @@
+package com.example.demo.game2048.backend.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A client session and everything it owns. Boards are keyed by their int id within the session,
+ * so dropping the session releases all of its board state at once.
+ */
+public final class GameSession {
+
+    private final String id;
+    private volatile long lastActivity;
+    private final Map<Integer, BoardState> boards = new ConcurrentHashMap<>();
+
+    GameSession(String id, long now) {
+        this.id = id;
+        this.lastActivity = now;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public long getLastActivity() {
+        return lastActivity;
+    }
+
+    void touch(long now) {
+        lastActivity = now;
+    }
+
+    public int getBoardCount() {
+        return boards.size();
+    }
+
+    BoardState findBoard(int boardId) {
+        return boards.get(boardId);
+    }
+
+    Map<Integer, BoardState> boards() {
+        return boards;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.demo.game2048.backend.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Searches a board's next hint in the background as soon as a move lands, for boards that opted in.
+ *
+ * The search goes through AiAlgorithms.search like any other, so a fixed-depth result also lands
+ * in the decision cache. It runs sequentially, and live hints search in parallel, so a hint
+ * requested while it is still running does not wait for it but searches on its own. Every method
+ * is called with the board's monitor held.
+ */
+@Component
+public class HintSpeculator {
+
+    @Autowired
+    private AiAlgorithms aiAlgorithms;
+
+    @Autowired
+    @Qualifier("speculativeSearchExecutor")
+    private ExecutorService speculativeSearchExecutor;
+
+    private final LongAdder started = new LongAdder();
+    private final LongAdder used = new LongAdder();
+    private final LongAdder notReady = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    /**
+     * Speculation state of one board; present on BoardState only while the board has opted in.
+     */
+    static final class Speculation {
+        String algorithm;      // of the board's last hint; nothing is speculated before the first one
+        long timeBudgetMs;
+        int version;           // board version the pending search started from
+        SearchContext context; // of the pending search, to cancel it while it runs
+        CompletableFuture<SearchResult> pending;
+    }
+
+    /**
+     * The precomputed hint for the board's current position if it is ready and was searched with
+     * the requested settings; otherwise null. Remembers the settings for the next speculation.
+     */
+    SearchResult takeReady(BoardState state, String algorithm, long timeBudgetMs) {
+        Speculation speculation = state.getSpeculation();
+        if (speculation == null) return null;
+
+        boolean matches = speculation.pending != null
+                && speculation.version == state.version
+                && algorithm.equalsIgnoreCase(speculation.algorithm)
+                && timeBudgetMs == speculation.timeBudgetMs;
+        speculation.algorithm = algorithm;
+        speculation.timeBudgetMs = timeBudgetMs;
+        if (!matches) return null;
+
+        if (!speculation.pending.isDone() || speculation.pending.isCompletedExceptionally()) {
+            notReady.increment();
+            return null;
+        }
+        used.increment();
+        return speculation.pending.getNow(null);
+    }
+
+    /**
+     * Start searching the hint for the board's current position, replacing any earlier speculation.
+     * ctx holds the settings the board's next hint will use.
+     */
+    void speculate(BoardState state, SearchContext ctx) {
+        Speculation speculation = state.getSpeculation();
+        if (speculation == null || speculation.algorithm == null) return;
+
+        cancel(state);
+        long board = state.board;
+        // Sequential, so speculation never competes with live requests for the parallel search pool
+        SearchContext background = ctx.withParallel(false);
+        speculation.version = state.version;
+        speculation.context = background;
+        speculation.pending = CompletableFuture.supplyAsync(() -> aiAlgorithms.search(board, background),
+                speculativeSearchExecutor);
+        started.increment();
+    }
+
+    /**
+     * Drop the board's pending speculation. One still queued never runs; one already searching
+     * stops at its next deadline check, freeing the speculation thread.
+     */
+    void cancel(BoardState state) {
+        Speculation speculation = state.getSpeculation();
+        if (speculation == null || speculation.pending == null) return;
+
+        speculation.context.cancel();
+        if (speculation.pending.cancel(false)) {
+            cancelled.increment();
+        }
+        speculation.pending = null;
+        speculation.context = null;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("started", started.sum());
+        stats.put("used", used.sum());
+        stats.put("notReady", notReady.sum());
+        stats.put("cancelled", cancelled.sum());
+        return stats;
+    }
+}
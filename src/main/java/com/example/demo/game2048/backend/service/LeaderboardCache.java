@@ -0,0 +1,135 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.dto.LeaderboardEntryDTO;
+import com.example.demo.game2048.backend.entity.GameRecord;
+import com.example.demo.game2048.backend.repository.GameRecordRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory top 10 per game mode and overall, ordered like the leaderboard queries
+ * (max tile, then score, descending). Loaded once at startup and then kept current from
+ * GameRecordsSavedEvent, so leaderboard reads never touch the database.
+ *
+ * Each board is an immutable snapshot replaced on write; readers just take the current list.
+ * Records saved while the startup load runs are held back and applied after it. The writer
+ * publishes after its commit, so the load may already have read a record whose event comes later;
+ * entries are therefore deduplicated by record id on insert.
+ */
+@Component
+public class LeaderboardCache {
+
+    public static final int SIZE = 10;
+
+    private static final Comparator<LeaderboardEntryDTO> RANKING =
+            Comparator.comparingInt(LeaderboardEntryDTO::maxTile).reversed()
+                    .thenComparing(Comparator.comparingInt(LeaderboardEntryDTO::score).reversed());
+
+    @Autowired
+    private GameRecordRepository repository;
+
+    // gameMode, upper-cased like the case-insensitive database collation -> top entries
+    private final Map<String, List<LeaderboardEntryDTO>> byMode = new ConcurrentHashMap<>();
+    private volatile List<LeaderboardEntryDTO> overall = List.of();
+    private volatile boolean loaded;
+
+    // Records saved while the cache was loading, applied once it is; null after that
+    private List<GameRecord> savedDuringLoad = new ArrayList<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<LeaderboardEntryDTO> top = new ArrayList<>();
+            repository.findTopAllGames().forEach(r -> top.add(LeaderboardEntryDTO.from(r)));
+
+            Map<String, List<LeaderboardEntryDTO>> modes = new HashMap<>();
+            for (Map<String, Object> row : repository.getGameModeStats()) {
+                String mode = (String) row.get("mode");
+                List<LeaderboardEntryDTO> entries = new ArrayList<>();
+                repository.findTopByGameMode(mode).forEach(r -> entries.add(LeaderboardEntryDTO.from(r)));
+                modes.put(modeKey(mode), List.copyOf(entries));
+            }
+
+            synchronized (this) {
+                overall = List.copyOf(top);
+                byMode.putAll(modes);
+                for (GameRecord record : savedDuringLoad) {
+                    offer(LeaderboardEntryDTO.from(record));
+                }
+                savedDuringLoad = null;
+                loaded = true;
+            }
+            System.out.println("Leaderboard cache loaded: " + byMode.size() + " game modes");
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                savedDuringLoad = null;
+            }
+            System.out.println("Leaderboard cache load failed, serving from database: " + e.getMessage());
+        }
+    }
+
+    @EventListener
+    public void onRecordsSaved(GameRecordsSavedEvent event) {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    if (savedDuringLoad != null) savedDuringLoad.addAll(event.records());
+                    return;
+                }
+            }
+        }
+        for (GameRecord record : event.records()) {
+            offer(LeaderboardEntryDTO.from(record));
+        }
+    }
+
+    private void offer(LeaderboardEntryDTO entry) {
+        synchronized (this) {
+            String mode = modeKey(entry.gameMode());
+            overall = insert(overall, entry);
+            byMode.put(mode, insert(byMode.getOrDefault(mode, List.of()), entry));
+        }
+    }
+
+    // Returns the same list when the entry does not make the top SIZE or is already in it
+    private static List<LeaderboardEntryDTO> insert(List<LeaderboardEntryDTO> top, LeaderboardEntryDTO entry) {
+        if (top.size() >= SIZE && RANKING.compare(entry, top.get(top.size() - 1)) >= 0) {
+            return top;
+        }
+        if (entry.id() != null) {
+            for (LeaderboardEntryDTO existing : top) {
+                if (entry.id().equals(existing.id())) return top;
+            }
+        }
+        int pos = 0;
+        while (pos < top.size() && RANKING.compare(top.get(pos), entry) <= 0) {
+            pos++;
+        }
+        List<LeaderboardEntryDTO> next = new ArrayList<>(Math.min(top.size() + 1, SIZE));
+        next.addAll(top.subList(0, pos));
+        next.add(entry);
+        next.addAll(top.subList(pos, Math.min(top.size(), SIZE - 1)));
+        return List.copyOf(next);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public List<LeaderboardEntryDTO> getOverall() {
+        return overall;
+    }
+
+    public List<LeaderboardEntryDTO> getByMode(String gameMode) {
+        return byMode.getOrDefault(modeKey(gameMode), List.of());
+    }
+
+    private static String modeKey(String gameMode) {
+        return gameMode.toUpperCase(Locale.ROOT);
+    }
+}
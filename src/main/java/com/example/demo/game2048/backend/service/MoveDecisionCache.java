@@ -0,0 +1,165 @@
+package com.example.demo.game2048.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide cache of finished root decisions: (board, algorithm, depth, chance limits) to the
+ * move and depth a fixed-depth search returns. A decision is a pure function of its key, so entries
+ * never expire; they only make room for newer ones when their bucket is full.
+ *
+ * Laid out like {@link TranspositionTable}: buckets of slots of three longs (check, cutoff, meta),
+ * with the check word stored as {@code board ^ cutoff ^ meta} so racing readers see a miss rather
+ * than a torn entry.
+ *
+ * Boards are keyed as they are, not reduced over rotations and reflections: the heuristic's snake
+ * weights anchor the big tiles in the top-left corner, so a mirrored board is not searched the same way.
+ */
+@Component
+public class MoveDecisionCache {
+
+    private static final int SLOT_LONGS = 3;
+    private static final int BUCKET_SIZE = 4;
+    private static final long BYTES_PER_ENTRY = SLOT_LONGS * Long.BYTES;
+
+    // meta: bits 0-7 algorithm, 8-15 depth, 16-23 max chance cells, 24-31 move + 1 (0 = none),
+    // 32-39 result depth, 40-55 insertion stamp, bit 56 always set so a live meta is never 0
+    private static final long IDENTITY_MASK = 0xFFFFFFL;
+    private static final long LIVE_BIT = 1L << 56;
+
+    private static final VarHandle ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+    private final int bucketMask;
+    private final int entries;
+
+    private final AtomicInteger stamp = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public MoveDecisionCache(@Value("${game.ai.decision-cache.memory-mb:4}") int memoryMb) {
+        long budgetEntries = Math.max(0, memoryMb) * 1024L * 1024L / BYTES_PER_ENTRY;
+        long maxEntries = Integer.MAX_VALUE / (SLOT_LONGS * Long.BYTES);
+        long buckets = Long.highestOneBit(Math.min(budgetEntries, maxEntries) / BUCKET_SIZE);
+
+        this.entries = (int) (buckets * BUCKET_SIZE);
+        this.bucketMask = (int) buckets - 1;
+        this.slots = entries == 0 ? null : new long[entries * SLOT_LONGS];
+    }
+
+    public boolean isEnabled() {
+        return entries > 0;
+    }
+
+    /**
+     * The cached decision for this board and search, or null when absent.
+     */
+    public SearchResult get(long board, SearchContext ctx) {
+        if (entries == 0) return null;
+
+        long identity = identity(ctx);
+        long cutoff = Double.doubleToLongBits(ctx.getProbabilityCutoff());
+        int base = bucketOf(board, identity, cutoff) * BUCKET_SIZE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = (base + i) * SLOT_LONGS;
+            long meta = load(slot + 2);
+            if (meta == 0 || (meta & IDENTITY_MASK) != identity) continue;
+
+            long storedCutoff = load(slot + 1);
+            if (storedCutoff == cutoff && (load(slot) ^ storedCutoff ^ meta) == board) {
+                hits.increment();
+                int move = (int) (meta >>> 24) & 0xFF;
+                int depth = (int) (meta >>> 32) & 0xFF;
+                return new SearchResult(move == 0 ? null : Bitboard.MOVE_NAMES[move - 1], depth);
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    public void put(long board, SearchContext ctx, SearchResult result) {
+        if (entries == 0) return;
+
+        long identity = identity(ctx);
+        long cutoff = Double.doubleToLongBits(ctx.getProbabilityCutoff());
+        int now = stamp.incrementAndGet() & 0xFFFF;
+        int base = bucketOf(board, identity, cutoff) * BUCKET_SIZE;
+
+        // Free or same-key slot first, otherwise the oldest entry of the bucket
+        int victim = -1;
+        int victimAge = -1;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = (base + i) * SLOT_LONGS;
+            long meta = load(slot + 2);
+            if (meta == 0 || ((meta & IDENTITY_MASK) == identity && load(slot + 1) == cutoff
+                    && (load(slot) ^ cutoff ^ meta) == board)) {
+                victim = slot;
+                victimAge = -1;
+                break;
+            }
+            int age = (now - (int) (meta >>> 40)) & 0xFFFF;
+            if (age > victimAge) {
+                victimAge = age;
+                victim = slot;
+            }
+        }
+        if (victimAge >= 0) {
+            evictions.increment();
+        }
+
+        int move = Bitboard.directionOf(result.move()) + 1;
+        long meta = LIVE_BIT | ((long) now << 40) | ((long) (result.depth() & 0xFF) << 32)
+                | ((long) move << 24) | identity;
+        save(victim, board ^ cutoff ^ meta);
+        save(victim + 1, cutoff);
+        save(victim + 2, meta);
+        stores.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("entries", entries);
+        stats.put("memoryBytes", entries * BYTES_PER_ENTRY);
+        stats.put("hits", hitCount);
+        stats.put("misses", lookups - hitCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("stores", stores.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    // Chance-cell limits above 16 behave like 16 (a board has no more cells)
+    private static long identity(SearchContext ctx) {
+        int algorithm = AiAlgorithms.algorithmIndex(ctx.getAlgorithm());
+        int cells = Math.min(ctx.getMaxChanceCells(), 16);
+        return ((long) cells << 16) | ((long) (ctx.getDepth() & 0xFF) << 8) | (algorithm & 0xFF);
+    }
+
+    private int bucketOf(long board, long identity, long cutoff) {
+        long h = board ^ ((identity ^ Long.rotateLeft(cutoff, 29)) * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33)) & bucketMask;
+    }
+
+    private long load(int index) {
+        return (long) ARRAY.getOpaque(slots, index);
+    }
+
+    private void save(int index, long value) {
+        ARRAY.setOpaque(slots, index, value);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.game2048.backend.service;
+
+/**
+ * Thrown inside a search whose context was cancelled; unwinds it at the next deadline check.
+ * Control flow only, so a single stackless instance is shared.
+ */
+final class SearchCancelledException extends RuntimeException {
+
+    static final SearchCancelledException INSTANCE = new SearchCancelledException();
+
+    private SearchCancelledException() {
+        super("Search cancelled", null, false, false);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.demo.game2048.backend.service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parameters of one AI search call. AiAlgorithms is a shared singleton, so everything a search
+ * needs travels with the call instead of living in fields: two sessions searching at the same time
+ * never see each other's settings.
+ *
+ * The parameters are immutable; the with* methods return a copy. The scratch fields are not: they
+ * belong to one search at a time. A context may serve many consecutive searches (e.g. all moves of
+ * one batch game), but never two concurrent ones. Fork/join tasks that need scratch of their own
+ * search with a fork(); forks share the node counter and cancellation of their origin.
+ */
+public final class SearchContext {
+
+    public static final int MIN_DEPTH = 1;
+    public static final int MAX_DEPTH = 6;
+
+    private static final int SCRATCH_PLIES = 16;
+
+    private final String algorithm;
+    private final int depth;
+    private final double probabilityCutoff;
+    private final int maxChanceCells;
+    private final boolean parallel;
+    private final long timeBudgetMs;
+
+    // Scratch: per-move root scores, indexed by Bitboard direction
+    final double[] rootScores = new double[4];
+    // Scratch: System.nanoTime() deadline of the running iteration, 0 when unbounded
+    long deadlineNanos;
+    // Set from another thread to abandon the search at its next deadline check
+    private volatile boolean cancelled;
+    // The context cancel() is called on: this one, or the one this was forked from
+    private final SearchContext origin;
+    // Scratch for alpha-beta minimax, indexed by remaining depth (room for any fixed or timed depth):
+    // the adversary's last refuting cell (-1 = none), and the player's children in search order
+    final int[] killerCells = new int[SCRATCH_PLIES];
+    final long[] orderedChildren = new long[SCRATCH_PLIES * 4];
+    final double[] orderedScores = new double[SCRATCH_PLIES * 4];
+    // Minimax nodes visited by searches with this context, including their fork/join tasks
+    final LongAdder nodes;
+
+    private SearchContext(String algorithm, int depth, double probabilityCutoff, int maxChanceCells,
+                          boolean parallel, long timeBudgetMs) {
+        this(algorithm, depth, probabilityCutoff, maxChanceCells, parallel, timeBudgetMs, null);
+    }
+
+    private SearchContext(String algorithm, int depth, double probabilityCutoff, int maxChanceCells,
+                          boolean parallel, long timeBudgetMs, SearchContext origin) {
+        this.algorithm = algorithm;
+        this.depth = depth;
+        this.probabilityCutoff = probabilityCutoff;
+        this.maxChanceCells = maxChanceCells;
+        this.parallel = parallel;
+        this.timeBudgetMs = timeBudgetMs;
+        this.origin = origin != null ? origin : this;
+        this.nodes = origin != null ? origin.nodes : new LongAdder();
+        Arrays.fill(killerCells, -1);
+    }
+
+    public static SearchContext of(String algorithm, int depth) {
+        String normalized = algorithm == null ? "EXPECTIMAX" : algorithm.toUpperCase(Locale.ROOT);
+        return new SearchContext(normalized, clampDepth(depth), 0, 0, true, 0);
+    }
+
+    /**
+     * Expectimax latency knobs: stop expanding a path once its probability drops below the cutoff,
+     * and visit at most maxChanceCells empty cells per chance node. 0 disables either.
+     */
+    public SearchContext withChanceLimits(double probabilityCutoff, int maxChanceCells) {
+        return new SearchContext(algorithm, depth,
+                Math.max(0, Math.min(probabilityCutoff, 1)), Math.max(0, maxChanceCells), parallel, timeBudgetMs);
+    }
+
+    /**
+     * Whether this search may use the shared fork/join pool.
+     */
+    public SearchContext withParallel(boolean parallel) {
+        return new SearchContext(algorithm, depth, probabilityCutoff, maxChanceCells, parallel, timeBudgetMs);
+    }
+
+    /**
+     * Search by deadline instead of depth: deepen iteratively and answer from the deepest iteration
+     * finished within the budget. 0 keeps the fixed-depth search.
+     */
+    public SearchContext withTimeBudget(long timeBudgetMs) {
+        return new SearchContext(algorithm, depth, probabilityCutoff, maxChanceCells, parallel, Math.max(0, timeBudgetMs));
+    }
+
+    /**
+     * Same parameters, deadline and killer cells, with scratch buffers of its own: for one fork/join
+     * task of the search running with this context.
+     */
+    SearchContext fork() {
+        SearchContext fork = new SearchContext(algorithm, depth, probabilityCutoff, maxChanceCells, parallel,
+                timeBudgetMs, origin);
+        fork.deadlineNanos = deadlineNanos;
+        System.arraycopy(killerCells, 0, fork.killerCells, 0, killerCells.length);
+        return fork;
+    }
+
+    /**
+     * Make a search running with this context stop at its next deadline check, throwing
+     * SearchCancelledException out of AiAlgorithms.search.
+     */
+    void cancel() {
+        cancelled = true;
+    }
+
+    void checkDeadline() {
+        if (origin.cancelled) {
+            throw SearchCancelledException.INSTANCE;
+        }
+        if (deadlineNanos != 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw SearchTimeoutException.INSTANCE;
+        }
+    }
+
+    public static int clampDepth(int depth) {
+        return Math.max(MIN_DEPTH, Math.min(depth, MAX_DEPTH));
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public double getProbabilityCutoff() {
+        return probabilityCutoff;
+    }
+
+    public int getMaxChanceCells() {
+        return maxChanceCells;
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public long getTimeBudgetMs() {
+        return timeBudgetMs;
+    }
+
+    public boolean hasChanceLimits() {
+        return probabilityCutoff > 0 || maxChanceCells > 0;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.demo.game2048.backend.service;
+
+/**
+ * Outcome of one AI search: the chosen move and the deepest search depth fully completed.
+ */
+public record SearchResult(String move, int depth) {}
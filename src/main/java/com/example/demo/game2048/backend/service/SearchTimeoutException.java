@@ -0,0 +1,14 @@
+package com.example.demo.game2048.backend.service;
+
+/**
+ * Thrown inside a time-budgeted search when its deadline passes; unwinds the current iteration.
+ * Control flow only, so a single stackless instance is shared.
+ */
+final class SearchTimeoutException extends RuntimeException {
+
+    static final SearchTimeoutException INSTANCE = new SearchTimeoutException();
+
+    private SearchTimeoutException() {
+        super("Search deadline reached", null, false, false);
+    }
+}
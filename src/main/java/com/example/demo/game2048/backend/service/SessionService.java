@@ -1,28 +1,50 @@
 package com.example.demo.game2048.backend.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 public class SessionService {
 
-    // sessionId -> Set of boardIds for that session
-    private final Map<String, Set<String>> sessionBoards = new ConcurrentHashMap<>();
+    @Autowired
+    private HintSpeculator hintSpeculator;
 
-    // Track last activity time for cleanup
-    private final Map<String, Long> sessionLastActivity = new ConcurrentHashMap<>();
+    // sessionId -> session and its boards
+    private final Map<String, GameSession> sessions = new ConcurrentHashMap<>();
+
+    // Boards across all sessions
+    private final AtomicInteger totalBoards = new AtomicInteger();
 
     // Session timeout: 30 minutes
     private static final long SESSION_TIMEOUT_MS = 30 * 60 * 1000;
 
+    // When a cap is exceeded, least recently active sessions are evicted down to this fraction of it
+    private static final double EVICTION_LOW_WATERMARK = 0.9;
+
+    @Value("${game.session.max-sessions:10000}")
+    private int maxSessions;
+
+    @Value("${game.session.max-boards:50000}")
+    private int maxBoards;
+
+    @Value("${game.session.max-boards-per-session:16}")
+    private int maxBoardsPerSession;
+
     /**
      * Generate a unique session ID
      */
     public String createSession() {
         String sessionId = UUID.randomUUID().toString();
-        sessionBoards.put(sessionId, ConcurrentHashMap.newKeySet());
-        sessionLastActivity.put(sessionId, System.currentTimeMillis());
+        GameSession session = new GameSession(sessionId, System.currentTimeMillis());
+        sessions.put(sessionId, session);
+        if (sessions.size() > maxSessions) {
+            evictLeastRecentlyUsed(session);
+        }
         return sessionId;
     }
 
@@ -30,57 +52,124 @@ public class SessionService {
      * Validate if a session exists and is active
      */
     public boolean isValidSession(String sessionId) {
-        if (sessionId == null || !sessionBoards.containsKey(sessionId)) {
-            return false;
+        return findSession(sessionId) != null;
+    }
+
+    /**
+     * The active session, or null when it does not exist or has timed out (a timed-out session is removed)
+     */
+    private GameSession findSession(String sessionId) {
+        if (sessionId == null) {
+            return null;
         }
 
-        Long lastActivity = sessionLastActivity.get(sessionId);
-        if (lastActivity == null) {
-            return false;
+        GameSession session = sessions.get(sessionId);
+        if (session == null) {
+            return null;
         }
 
         // Check if session has timed out
-        if (System.currentTimeMillis() - lastActivity > SESSION_TIMEOUT_MS) {
+        if (System.currentTimeMillis() - session.getLastActivity() > SESSION_TIMEOUT_MS) {
             cleanupSession(sessionId);
-            return false;
+            return null;
         }
 
-        return true;
+        return session;
+    }
+
+    /**
+     * Look up an active session and mark it as used
+     *
+     * @throws IllegalStateException when the session is invalid or expired
+     */
+    public GameSession requireSession(String sessionId) {
+        GameSession session = findSession(sessionId);
+        if (session == null) {
+            throw new IllegalStateException("Invalid or expired session");
+        }
+        session.touch(System.currentTimeMillis());
+        return session;
     }
 
     /**
      * Update session activity timestamp
      */
     public void touchSession(String sessionId) {
-        if (sessionBoards.containsKey(sessionId)) {
-            sessionLastActivity.put(sessionId, System.currentTimeMillis());
+        GameSession session = sessions.get(sessionId);
+        if (session != null) {
+            session.touch(System.currentTimeMillis());
         }
     }
 
     /**
-     * Register a board for a session
+     * Get a board of the session, creating it with the factory if needed
+     *
+     * @throws BoardLimitExceededException when the session already has its maximum number of boards
      */
-    public void registerBoard(String sessionId, String boardKey) {
-        if (!sessionBoards.containsKey(sessionId)) {
-            sessionBoards.put(sessionId, ConcurrentHashMap.newKeySet());
+    BoardState getOrCreateBoard(GameSession session, int boardId, Supplier<BoardState> factory) {
+        BoardState state = session.findBoard(boardId);
+        if (state != null) {
+            return state;
+        }
+
+        boolean created = false;
+        synchronized (session) {
+            state = session.findBoard(boardId);
+            if (state == null) {
+                if (sessions.get(session.getId()) != session) {
+                    throw new IllegalStateException("Invalid or expired session");
+                }
+                if (session.getBoardCount() >= maxBoardsPerSession) {
+                    throw new BoardLimitExceededException("Session already has " + maxBoardsPerSession + " boards");
+                }
+                state = factory.get();
+                session.boards().put(boardId, state);
+                created = true;
+            }
+        }
+
+        if (created && totalBoards.incrementAndGet() > maxBoards) {
+            evictLeastRecentlyUsed(session);
         }
-        sessionBoards.get(sessionId).add(boardKey);
-        touchSession(sessionId);
+        return state;
     }
 
     /**
-     * Get all boards for a session
+     * Remove one board and its settings
      */
-    public Set<String> getSessionBoards(String sessionId) {
-        return sessionBoards.getOrDefault(sessionId, Collections.emptySet());
+    void removeBoard(GameSession session, int boardId) {
+        synchronized (session) {
+            BoardState removed = session.boards().remove(boardId);
+            if (removed != null) {
+                totalBoards.decrementAndGet();
+                releaseBoard(removed);
+            }
+        }
     }
 
     /**
-     * Clean up a specific session
+     * Clean up a specific session and all of its boards
      */
     public void cleanupSession(String sessionId) {
-        sessionBoards.remove(sessionId);
-        sessionLastActivity.remove(sessionId);
+        GameSession session = sessions.remove(sessionId);
+        if (session != null) {
+            synchronized (session) {
+                totalBoards.addAndGet(-session.getBoardCount());
+                session.boards().values().forEach(this::releaseBoard);
+                session.boards().clear();
+            }
+        }
+    }
+
+    /**
+     * Drop a removed board's pending hint speculation and opt it out, so a request still holding
+     * the board cannot queue a new one
+     */
+    private void releaseBoard(BoardState state) {
+        synchronized (state) {
+            hintSpeculator.cancel(state);
+            state.setSpeculation(null);
+        }
     }
 
     /**
@@ -92,9 +181,9 @@ public class SessionService {
 
         List<String> expiredSessions = new ArrayList<>();
 
-        for (Map.Entry<String, Long> entry : sessionLastActivity.entrySet()) {
-            if (currentTime - entry.getValue() > SESSION_TIMEOUT_MS) {
-                expiredSessions.add(entry.getKey());
+        for (GameSession session : sessions.values()) {
+            if (currentTime - session.getLastActivity() > SESSION_TIMEOUT_MS) {
+                expiredSessions.add(session.getId());
             }
         }
 
@@ -106,11 +195,38 @@ public class SessionService {
         return cleanedCount;
     }
 
+    /**
+     * Drop the least recently active sessions until both caps are back under their low watermark.
+     * Runs only when a cap is exceeded, and frees a tenth of the headroom at once so the sort is rare.
+     * The session whose request triggered the eviction is never chosen.
+     */
+    private synchronized void evictLeastRecentlyUsed(GameSession requester) {
+        int sessionTarget = (int) (maxSessions * EVICTION_LOW_WATERMARK);
+        int boardTarget = (int) (maxBoards * EVICTION_LOW_WATERMARK);
+        if (sessions.size() <= maxSessions && totalBoards.get() <= maxBoards) {
+            return;
+        }
+
+        List<GameSession> byActivity = new ArrayList<>(sessions.values());
+        byActivity.sort(Comparator.comparingLong(GameSession::getLastActivity));
+
+        int evicted = 0;
+        for (GameSession session : byActivity) {
+            if (sessions.size() <= sessionTarget && totalBoards.get() <= boardTarget) {
+                break;
+            }
+            if (session == requester) continue;
+            cleanupSession(session.getId());
+            evicted++;
+        }
+        System.out.println("Session store over capacity: evicted " + evicted + " least recently used sessions");
+    }
+
     /**
      * Get total number of active sessions
      */
     public int getActiveSessionCount() {
-        return sessionBoards.size();
+        return sessions.size();
     }
 
     /**
@@ -119,14 +235,19 @@ public class SessionService {
     public Map<String, Object> getSessionStats() {
         cleanupExpiredSessions();
 
+        int sessionCount = sessions.size();
+        int boardCount = totalBoards.get();
+
         Map<String, Object> stats = new HashMap<>();
-        stats.put("activeSessions", sessionBoards.size());
-        stats.put("totalBoards", sessionBoards.values().stream()
-                .mapToInt(Set::size).sum());
-        stats.put("averageBoardsPerSession",
-                sessionBoards.isEmpty() ? 0 :
-                        sessionBoards.values().stream().mapToInt(Set::size).average().orElse(0));
+        stats.put("activeSessions", sessionCount);
+        stats.put("totalBoards", boardCount);
+        stats.put("averageBoardsPerSession", sessionCount == 0 ? 0.0 : (double) boardCount / sessionCount);
+        stats.put("maxSessions", maxSessions);
+        stats.put("maxBoards", maxBoards);
+        stats.put("maxBoardsPerSession", maxBoardsPerSession);
+        stats.put("estimatedBytesPerBoard", BoardState.ESTIMATED_BYTES);
+        stats.put("estimatedBoardMemoryBytes", (long) boardCount * BoardState.ESTIMATED_BYTES);
 
         return stats;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,193 @@
+package com.example.demo.game2048.backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, open-addressed cache of search values shared by every search thread.
+ *
+ * Each entry is three longs: check, value and meta. The check word is stored as
+ * {@code board ^ value ^ meta}, so a reader that races a writer sees a check that no longer decodes
+ * to its board and treats the slot as a miss - no locks are needed. Entries are keyed by the full
+ * packed board plus remaining depth and node type; a hit only ever returns the value the same search
+ * would have computed.
+ */
+@Component
+public class TranspositionTable {
+
+    public static final int EXPECTIMAX_MAX = 1;
+    public static final int EXPECTIMAX_CHANCE = 2;
+    public static final int MINIMAX_MAX = 3;
+    public static final int MINIMAX_MIN = 4;
+    public static final int DLS = 5;
+
+    private static final int SLOT_LONGS = 3;
+    private static final int BUCKET_SIZE = 4;
+    private static final long BYTES_PER_ENTRY = SLOT_LONGS * Long.BYTES;
+
+    // meta: bits 0-7 depth, 8-15 node type, 16-31 generation, bit 32 always set so a live meta is never 0
+    private static final long IDENTITY_MASK = 0xFFFFL;
+    private static final long LIVE_BIT = 1L << 32;
+
+    private static final VarHandle ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle BUFFER = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private final long[] heap;
+    private final ByteBuffer offHeap;
+    private final int bucketMask;
+    private final int entries;
+
+    private final AtomicInteger generation = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    public TranspositionTable(@Value("${game.ai.tt.memory-mb:16}") int memoryMb,
+                              @Value("${game.ai.tt.off-heap:false}") boolean offHeap) {
+        long budgetEntries = Math.max(0, memoryMb) * 1024L * 1024L / BYTES_PER_ENTRY;
+        long maxEntries = Integer.MAX_VALUE / (SLOT_LONGS * Long.BYTES);
+        long buckets = Long.highestOneBit(Math.min(budgetEntries, maxEntries) / BUCKET_SIZE);
+
+        this.entries = (int) (buckets * BUCKET_SIZE);
+        this.bucketMask = (int) buckets - 1;
+        if (entries == 0) {
+            this.heap = null;
+            this.offHeap = null;
+        } else if (offHeap) {
+            this.heap = null;
+            this.offHeap = ByteBuffer.allocateDirect(entries * SLOT_LONGS * Long.BYTES).order(ByteOrder.nativeOrder());
+        } else {
+            this.heap = new long[entries * SLOT_LONGS];
+            this.offHeap = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return entries > 0;
+    }
+
+    /**
+     * Start a new root search; entries from earlier generations become preferred eviction victims.
+     */
+    public void newSearch() {
+        generation.incrementAndGet();
+    }
+
+    /**
+     * Returns the stored value for (board, depth, type) or NaN when absent.
+     */
+    public double probe(long board, int depth, int type) {
+        if (entries == 0) return Double.NaN;
+
+        long identity = identity(depth, type);
+        int base = bucketOf(board, identity) * BUCKET_SIZE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = (base + i) * SLOT_LONGS;
+            long meta = load(slot + 2);
+            if (meta == 0 || (meta & IDENTITY_MASK) != identity) continue;
+
+            long value = load(slot + 1);
+            if ((load(slot) ^ value ^ meta) == board) {
+                hits.increment();
+                return Double.longBitsToDouble(value);
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    public void store(long board, int depth, int type, double score) {
+        if (entries == 0) return;
+
+        long identity = identity(depth, type);
+        int gen = generation.get() & 0xFFFF;
+        int base = bucketOf(board, identity) * BUCKET_SIZE;
+
+        int victim = -1;
+        int victimRank = Integer.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            int slot = (base + i) * SLOT_LONGS;
+            long meta = load(slot + 2);
+            if (meta == 0) {
+                victim = slot;
+                victimRank = -1;
+                break;
+            }
+            if ((meta & IDENTITY_MASK) == identity && (load(slot) ^ load(slot + 1) ^ meta) == board) {
+                victim = slot;
+                victimRank = -1;
+                break;
+            }
+            // Entries from older searches go first, then the shallowest ones
+            int entryGen = (int) (meta >>> 16) & 0xFFFF;
+            int rank = (entryGen == gen ? 256 : 0) + (int) (meta & 0xFF);
+            if (rank < victimRank) {
+                victimRank = rank;
+                victim = slot;
+            }
+        }
+        if (victimRank >= 0) {
+            collisions.increment();
+        }
+
+        long value = Double.doubleToRawLongBits(score);
+        long meta = LIVE_BIT | ((long) gen << 16) | identity;
+        save(victim, board ^ value ^ meta);
+        save(victim + 1, value);
+        save(victim + 2, meta);
+        stores.increment();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("offHeap", offHeap != null);
+        stats.put("entries", entries);
+        stats.put("memoryBytes", entries * BYTES_PER_ENTRY);
+        stats.put("generation", generation.get());
+        stats.put("hits", hitCount);
+        stats.put("misses", lookups - hitCount);
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("stores", stores.sum());
+        stats.put("collisions", collisions.sum());
+        return stats;
+    }
+
+    private static long identity(int depth, int type) {
+        return ((long) type << 8) | (depth & 0xFF);
+    }
+
+    private int bucketOf(long board, long identity) {
+        long h = board ^ (identity * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (h ^ (h >>> 33)) & bucketMask;
+    }
+
+    private long load(int index) {
+        return heap != null
+                ? (long) ARRAY.getOpaque(heap, index)
+                : (long) BUFFER.getOpaque(offHeap, index * Long.BYTES);
+    }
+
+    private void save(int index, long value) {
+        if (heap != null) {
+            ARRAY.setOpaque(heap, index, value);
+        } else {
+            BUFFER.setOpaque(offHeap, index * Long.BYTES, value);
+        }
+    }
+}
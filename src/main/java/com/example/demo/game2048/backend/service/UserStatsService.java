@@ -0,0 +1,160 @@
+package com.example.demo.game2048.backend.service;
+
+import com.example.demo.game2048.backend.entity.GameRecord;
+import com.example.demo.game2048.backend.entity.UserModeStats;
+import com.example.demo.game2048.backend.entity.UserStats;
+import com.example.demo.game2048.backend.repository.UserModeStatsRepository;
+import com.example.demo.game2048.backend.repository.UserStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Maintains user_stats and user_mode_stats. GameRecordWriter calls apply() in the transaction that
+ * inserts the records, so the totals always match game_records (plus anything rolled up from it).
+ */
+@Service
+public class UserStatsService {
+
+    private static final String UPSERT_USER =
+            "INSERT INTO user_stats (username, total_games, total_score, best_tile, best_score, hints_used) " +
+                    "VALUES (?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE " +
+                    "total_games = total_games + VALUES(total_games), total_score = total_score + VALUES(total_score), " +
+                    "best_tile = GREATEST(best_tile, VALUES(best_tile)), best_score = GREATEST(best_score, VALUES(best_score)), " +
+                    "hints_used = hints_used + VALUES(hints_used)";
+
+    private static final String UPSERT_USER_MODE =
+            "INSERT INTO user_mode_stats (username, game_mode, games, best_tile) VALUES (?, ?, ?, ?) " +
+                    "ON DUPLICATE KEY UPDATE games = games + VALUES(games), best_tile = GREATEST(best_tile, VALUES(best_tile))";
+
+    // Name of the backfill in completed_migrations
+    private static final String BACKFILL_MIGRATION = "user_stats_backfill";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private UserStatsRepository userStatsRepository;
+
+    @Autowired
+    private UserModeStatsRepository userModeStatsRepository;
+
+    private static final class Totals {
+        long games;
+        long score;
+        int bestTile;
+        int bestScore;
+        long hints;
+    }
+
+    /**
+     * Add a chunk of newly inserted records to the totals. Must run in the inserting transaction.
+     * Users are updated in sorted order so concurrent chunks lock rows in the same order.
+     */
+    public void apply(List<GameRecord> records) {
+        Map<String, Totals> users = new TreeMap<>();
+        Map<List<String>, Totals> modes = new TreeMap<>(Comparator.<List<String>, String>comparing(k -> k.get(0))
+                .thenComparing(k -> k.get(1)));
+        for (GameRecord record : records) {
+            add(users.computeIfAbsent(record.getUsername(), k -> new Totals()), record);
+            add(modes.computeIfAbsent(List.of(record.getUsername(), record.getGameMode()), k -> new Totals()), record);
+        }
+
+        List<Object[]> userRows = new ArrayList<>(users.size());
+        users.forEach((username, t) -> userRows.add(
+                new Object[]{username, t.games, t.score, t.bestTile, t.bestScore, t.hints}));
+        List<Object[]> modeRows = new ArrayList<>(modes.size());
+        modes.forEach((key, t) -> modeRows.add(new Object[]{key.get(0), key.get(1), t.games, t.bestTile}));
+
+        jdbcTemplate.batchUpdate(UPSERT_USER, userRows);
+        jdbcTemplate.batchUpdate(UPSERT_USER_MODE, modeRows);
+    }
+
+    private static void add(Totals t, GameRecord record) {
+        t.games++;
+        t.score += record.getScore();
+        t.bestTile = Math.max(t.bestTile, record.getMaxTile());
+        t.bestScore = Math.max(t.bestScore, record.getScore());
+        t.hints += record.getHintsUsed();
+    }
+
+    public Map<String, Object> getUserStats(String username) {
+        UserStats stats = userStatsRepository.findById(username).orElse(null);
+
+        Map<String, Long> gamesByMode = new TreeMap<>();
+        for (UserModeStats mode : userModeStatsRepository.findByUsername(username)) {
+            gamesByMode.put(mode.getGameMode(), mode.getGames());
+        }
+
+        long totalGames = stats != null ? stats.getTotalGames() : 0;
+        long totalScore = stats != null ? stats.getTotalScore() : 0;
+        Map<String, Object> result = new HashMap<>();
+        result.put("username", username);
+        result.put("totalGames", totalGames);
+        result.put("totalScore", totalScore);
+        result.put("maxTile", stats != null ? stats.getBestTile() : 0);
+        result.put("bestScore", stats != null ? stats.getBestScore() : 0);
+        result.put("totalHintsUsed", stats != null ? stats.getHintsUsed() : 0);
+        result.put("avgScore", totalGames > 0 ? totalScore / totalGames : 0);
+        result.put("gamesByMode", gamesByMode);
+        return result;
+    }
+
+    /**
+     * First start with the new tables: build them from game_records and game_record_summaries.
+     *
+     * Games may be saved before this runs (requests are served before ApplicationReadyEvent), so
+     * rows that already exist are overwritten with the aggregate rather than skipped. The
+     * INSERT ... SELECT takes shared locks on the rows it reads, so a concurrent save either lands
+     * before it and is part of the aggregate, or waits and is added on top afterwards. A row in
+     * completed_migrations, written in the same transaction, keeps later starts from repeating it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void backfill() {
+        try {
+            Integer users = transactionTemplate.execute(status -> {
+                Long done = jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM completed_migrations WHERE name = ?", Long.class, BACKFILL_MIGRATION);
+                if (done != null && done > 0) return null;
+
+                int upserted = jdbcTemplate.update(
+                        "INSERT INTO user_stats (username, total_games, total_score, best_tile, best_score, hints_used) " +
+                                "SELECT username, SUM(games), SUM(score), MAX(tile), MAX(best), SUM(hints) FROM (" +
+                                "SELECT username, COUNT(*) AS games, SUM(score) AS score, MAX(max_tile) AS tile, " +
+                                "MAX(score) AS best, SUM(hints_used) AS hints FROM game_records GROUP BY username " +
+                                "UNION ALL SELECT username, SUM(game_count), SUM(score_sum), MAX(max_tile), MAX(score_max), " +
+                                "SUM(hints_sum) FROM game_record_summaries GROUP BY username) t GROUP BY username " +
+                                "ON DUPLICATE KEY UPDATE total_games = VALUES(total_games), total_score = VALUES(total_score), " +
+                                "best_tile = VALUES(best_tile), best_score = VALUES(best_score), hints_used = VALUES(hints_used)");
+                jdbcTemplate.update(
+                        "INSERT INTO user_mode_stats (username, game_mode, games, best_tile) " +
+                                "SELECT username, game_mode, SUM(games), MAX(tile) FROM (" +
+                                "SELECT username, game_mode, COUNT(*) AS games, MAX(max_tile) AS tile " +
+                                "FROM game_records GROUP BY username, game_mode " +
+                                "UNION ALL SELECT username, game_mode, SUM(game_count), MAX(max_tile) " +
+                                "FROM game_record_summaries GROUP BY username, game_mode) t GROUP BY username, game_mode " +
+                                "ON DUPLICATE KEY UPDATE games = VALUES(games), best_tile = VALUES(best_tile)");
+                // IGNORE: another instance may have finished the same backfill meanwhile
+                jdbcTemplate.update("INSERT IGNORE INTO completed_migrations (name, completed_at) VALUES (?, NOW())",
+                        BACKFILL_MIGRATION);
+                return upserted;
+            });
+            if (users != null) {
+                System.out.println("Built user stats (" + users + " rows affected)");
+            }
+        } catch (RuntimeException e) {
+            System.out.println("User stats backfill failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.game2048.backend.service;
+
+/**
+ * The baseline int[][] board heuristic from AiAlgorithms, unchanged apart from being static, kept
+ * as the reference HeuristicEvaluatorTest compares HeuristicEvaluator against.
+ */
+final class BaselineHeuristic {
+
+    private BaselineHeuristic() {
+    }
+
+    static double evaluateBoard(int[][] b) {
+        double snakeScore = snakePattern(b);
+        double monotonicityScore = improvedMonotonicity(b);
+        double smoothScore = improvedSmoothness(b);
+        double emptyScore = countEmpty(b);
+        double mergeScore = mergePotential(b);
+
+        return 10000.0 * snakeScore +
+                1000.0 * monotonicityScore +
+                100.0 * smoothScore +
+                270.0 * emptyScore +
+                300.0 * mergeScore;
+    }
+
+    private static double snakePattern(int[][] b) {
+        int[][] weights = {
+                {15, 14, 13, 12},
+                {8,  9,  10, 11},
+                {7,  6,  5,  4},
+                {0,  1,  2,  3}
+        };
+
+        double score = 0;
+        int maxTile = 0;
+
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                if (b[r][c] > 0) {
+                    double value = Math.pow(2, log2(b[r][c]) * 1.5);
+                    score += value * Math.pow(2, weights[r][c]);
+                    maxTile = Math.max(maxTile, b[r][c]);
+                }
+            }
+        }
+
+        if (b[0][0] == maxTile) {
+            score *= 2.0;
+        }
+
+        return score;
+    }
+
+    private static double improvedMonotonicity(int[][] b) {
+        double[] totals = new double[4];
+
+        for (int r = 0; r < 4; r++) {
+            int current = 0;
+            int next = current + 1;
+            while (next < 4) {
+                while (next < 4 && b[r][next] == 0) next++;
+                if (next >= 4) break;
+
+                double currentValue = b[r][current] > 0 ? log2(b[r][current]) : 0;
+                double nextValue = log2(b[r][next]);
+
+                if (currentValue > nextValue) {
+                    totals[0] += nextValue - currentValue;
+                } else if (nextValue > currentValue) {
+                    totals[1] += currentValue - nextValue;
+                }
+
+                current = next;
+                next++;
+            }
+        }
+
+        for (int c = 0; c < 4; c++) {
+            int current = 0;
+            int next = current + 1;
+            while (next < 4) {
+                while (next < 4 && b[next][c] == 0) next++;
+                if (next >= 4) break;
+
+                double currentValue = b[current][c] > 0 ? log2(b[current][c]) : 0;
+                double nextValue = log2(b[next][c]);
+
+                if (currentValue > nextValue) {
+                    totals[2] += nextValue - currentValue;
+                } else if (nextValue > currentValue) {
+                    totals[3] += currentValue - nextValue;
+                }
+
+                current = next;
+                next++;
+            }
+        }
+
+        return Math.max(totals[0], totals[1]) + Math.max(totals[2], totals[3]);
+    }
+
+    private static double improvedSmoothness(int[][] b) {
+        double smooth = 0;
+
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 4; c++) {
+                if (b[r][c] == 0) continue;
+
+                double value = log2(b[r][c]);
+
+                if (c + 1 < 4 && b[r][c + 1] != 0) {
+                    double targetValue = log2(b[r][c + 1]);
+                    smooth -= Math.abs(value - targetValue);
+                }
+
+                if (r + 1 < 4 && b[r + 1][c] != 0) {
+                    double targetValue = log2(b[r + 1][c]);
+                    smooth -= Math.abs(value - targetValue);
+                }
+            }
+        }
+
+        return smooth;
+    }
+
+    private static double log2(int v) {
+        return v <= 0 ? 0 : Math.log(v) / Math.log(2);
+    }
+
+    private static int countEmpty(int[][] b) {
+        int count = 0;
+        for (int[] row : b) {
+            for (int v : row) {
+                if (v == 0) count++;
+            }
+        }
+        return count;
+    }
+
+    private static double mergePotential(int[][] b) {
+        double score = 0;
+
+        for (int r = 0; r < 4; r++) {
+            for (int c = 0; c < 3; c++) {
+                if (b[r][c] != 0 && b[r][c] == b[r][c + 1]) {
+                    score += log2(b[r][c]);
+                }
+            }
+        }
+
+        for (int c = 0; c < 4; c++) {
+            for (int r = 0; r < 3; r++) {
+                if (b[r][c] != 0 && b[r][c] == b[r + 1][c]) {
+                    score += log2(b[r][c]);
+                }
+            }
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.game2048.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitboardTest {
+
+    private static final int BOARDS = 100_000;
+
+    /**
+     * Every move, its score and game-over detection must match the int[][] reference in GameLogic.
+     */
+    @Test
+    void movesMatchTheReferenceImplementation() {
+        Random random = new Random(16);
+        for (int i = 0; i < BOARDS; i++) {
+            long board = randomBoard(random);
+            int[][] cells = Bitboard.toArray(board);
+            String hex = Long.toHexString(board);
+
+            for (int move = 0; move < 4; move++) {
+                GameLogic.BoardMoveResult expected = switch (move) {
+                    case Bitboard.UP -> GameLogic.moveUp(cells);
+                    case Bitboard.DOWN -> GameLogic.moveDown(cells);
+                    case Bitboard.LEFT -> GameLogic.moveLeft(cells);
+                    default -> GameLogic.moveRight(cells);
+                };
+                String name = Bitboard.MOVE_NAMES[move];
+                assertArrayEquals(expected.board(), Bitboard.toArray(Bitboard.move(board, move)),
+                        () -> name + " board " + hex);
+                assertEquals(expected.score(), Bitboard.moveScore(board, move), () -> name + " score " + hex);
+                assertEquals(expected.moved(), Bitboard.canMove(board, move), () -> name + " moved " + hex);
+            }
+            assertEquals(GameLogic.isGameOver(cells), Bitboard.isGameOver(board), () -> "game over " + hex);
+        }
+    }
+
+    // Exponents below MAX_EXPONENT, so every merge stays representable in a nibble
+    private static long randomBoard(Random random) {
+        int fill = random.nextInt(17);
+        long board = 0;
+        for (int cell = 0; cell < 16; cell++) {
+            if (random.nextInt(16) < fill) {
+                board = Bitboard.withExponent(board, cell, 1 + random.nextInt(Bitboard.MAX_EXPONENT - 1));
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.demo.game2048.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.ref.Reference;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardStateMemoryTest {
+
+    private static final int BOARDS = 100_000;
+    private static final int BOARDS_PER_SESSION = 16;
+
+    /**
+     * The original layout: an int[4][4] grid, String fields, and separate maps keyed by
+     * "sessionId:boardId" for the boards, their depths and each session's board keys.
+     */
+    private static class LegacyBoardState {
+        int[][] board = new int[4][4];
+        int score;
+        boolean gameOver;
+        String currentUsername = "Guest";
+        int hintsUsed;
+        boolean isAiStarted;
+        String lastSuggestedMove;
+        String lastSuggester;
+        String lastUsedAlgorithm;
+    }
+
+    private static class LegacyStore {
+        final Map<String, LegacyBoardState> boards = new ConcurrentHashMap<>();
+        final Map<String, Integer> boardDepths = new ConcurrentHashMap<>();
+        final Map<String, Set<String>> sessionBoards = new ConcurrentHashMap<>();
+    }
+
+    @Test
+    void compactBoardsRetainLessThanHalfTheLegacyHeap() {
+        long legacy = retainedBytesPerBoard(this::buildLegacy);
+        long compact = retainedBytesPerBoard(this::buildCompact);
+        System.out.println("Retained heap per board: legacy " + legacy + " bytes, compact " + compact
+                + " bytes, estimate " + BoardState.ESTIMATED_BYTES + " bytes");
+
+        assertTrue(compact * 2 < legacy, "compact " + compact + " vs legacy " + legacy);
+        assertTrue(compact <= 2 * BoardState.ESTIMATED_BYTES, "estimate too low: measured " + compact);
+    }
+
+    private Object buildLegacy() {
+        LegacyStore store = new LegacyStore();
+        Random random = new Random(1);
+        for (int s = 0; s < BOARDS / BOARDS_PER_SESSION; s++) {
+            String sessionId = UUID.randomUUID().toString();
+            Set<String> keys = ConcurrentHashMap.newKeySet();
+            for (int b = 0; b < BOARDS_PER_SESSION; b++) {
+                String key = sessionId + ":" + b;
+                LegacyBoardState state = new LegacyBoardState();
+                state.board[random.nextInt(4)][random.nextInt(4)] = 2;
+                store.boards.put(key, state);
+                store.boardDepths.put(key, 3);
+                keys.add(key);
+            }
+            store.sessionBoards.put(sessionId, keys);
+        }
+        return store;
+    }
+
+    private Object buildCompact() {
+        SessionService sessions = new SessionService();
+        ReflectionTestUtils.setField(sessions, "maxSessions", BOARDS);
+        ReflectionTestUtils.setField(sessions, "maxBoards", BOARDS);
+        ReflectionTestUtils.setField(sessions, "maxBoardsPerSession", BOARDS_PER_SESSION);
+        Random random = new Random(1);
+        for (int s = 0; s < BOARDS / BOARDS_PER_SESSION; s++) {
+            GameSession session = sessions.requireSession(sessions.createSession());
+            for (int b = 0; b < BOARDS_PER_SESSION; b++) {
+                BoardState state = sessions.getOrCreateBoard(session, b, () -> new BoardState("Guest"));
+                state.board = Bitboard.spawnTile(0L, random);
+                state.setAiDepth(3);
+            }
+        }
+        return sessions;
+    }
+
+    private static long retainedBytesPerBoard(java.util.function.Supplier<Object> builder) {
+        long before = usedHeap();
+        Object store = builder.get();
+        long after = usedHeap();
+        Reference.reachabilityFence(store);
+        return (after - before) / BOARDS;
+    }
+
+    // Lowest of a few post-GC readings, to settle objects freed by the previous collection
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
@@ -1,4 +1,4 @@
-// Đường dẫn: src/main/java/com/example/demo/2048/backend/service/GameLogic.java
+// Đường dẫn: src/test/java/com/example/demo/game2048/backend/service/GameLogic.java
 package com.example.demo.game2048.backend.service;
 
 import java.util.ArrayList;
@@ -6,6 +6,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
+/**
+ * The baseline int[][] move logic, unchanged, kept as the independent reference BitboardTest
+ * compares Bitboard against.
+ */
 public class GameLogic {
     public static final int BOARD_SIZE = 4;
 
@@ -0,0 +1,118 @@
+package com.example.demo.game2048.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+class GameServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ROUNDS = 200;
+    private static final int OPS_PER_THREAD = 100;
+
+    /**
+     * Many threads move, AI-move, hint and read one board at once. With only 2s spawning, every
+     * consistent board satisfies two invariants that a lost or torn update breaks:
+     * the score is the sum of (k - 1) * 2^k over its tiles 2^k, and the tile sum is 4 plus 2 per
+     * move played since the new game.
+     */
+    @Test
+    void concurrentRequestsOnOneBoardKeepItConsistent() throws Exception {
+        SessionService sessionService = new SessionService();
+        ReflectionTestUtils.setField(sessionService, "maxSessions", 10);
+        ReflectionTestUtils.setField(sessionService, "maxBoards", 10);
+        ReflectionTestUtils.setField(sessionService, "maxBoardsPerSession", 1);
+        HintSpeculator hintSpeculator = new HintSpeculator();
+        ReflectionTestUtils.setField(sessionService, "hintSpeculator", hintSpeculator);
+
+        AiAlgorithms aiAlgorithms = new AiAlgorithms();
+        ReflectionTestUtils.setField(aiAlgorithms, "transpositionTable", new TranspositionTable(1, false));
+        ReflectionTestUtils.setField(aiAlgorithms, "decisionCache", new MoveDecisionCache(1));
+
+        GameService gameService = new GameService();
+        ReflectionTestUtils.setField(gameService, "sessionService", sessionService);
+        ReflectionTestUtils.setField(gameService, "aiAlgorithms", aiAlgorithms);
+        ReflectionTestUtils.setField(gameService, "recordQueue", mock(GameRecordQueue.class));
+        ReflectionTestUtils.setField(gameService, "hintSpeculator", hintSpeculator);
+        ReflectionTestUtils.setField(gameService, "random", new Random(7) {
+            @Override
+            public double nextDouble() {
+                return 0.0; // always spawn a 2
+            }
+        });
+
+        String sessionId = sessionService.createSession();
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                gameService.startNewGame(sessionId, "Stress", 0);
+                BoardState state = sessionService.requireSession(sessionId).findBoard(0);
+                int startVersion;
+                synchronized (state) {
+                    startVersion = state.version;
+                }
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    futures.add(pool.submit(() -> {
+                        start.await();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < OPS_PER_THREAD; i++) {
+                            switch (random.nextInt(8)) {
+                                case 0 -> gameService.playAiMove(sessionId, 0, "GREEDY", 0);
+                                case 1 -> gameService.getHint(sessionId, 0, "GREEDY", 0);
+                                case 2 -> {
+                                    if (gameService.getGameState(sessionId, 0).isGameOver()) return null;
+                                }
+                                default -> gameService.move(sessionId, Bitboard.MOVE_NAMES[random.nextInt(4)], 0);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+
+                synchronized (state) {
+                    int moves = state.version - startVersion;
+                    assertEquals(4 + 2L * moves, tileSum(state.board), "tile sum after " + moves + " moves");
+                    assertEquals(mergeScore(state.board), state.score, "score after " + moves + " moves");
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static long tileSum(long board) {
+        long sum = 0;
+        for (int i = 0; i < 16; i++) {
+            int e = (int) ((board >>> (4 * i)) & 0xF);
+            if (e > 0) sum += 1L << e;
+        }
+        return sum;
+    }
+
+    private static long mergeScore(long board) {
+        long score = 0;
+        for (int i = 0; i < 16; i++) {
+            int e = (int) ((board >>> (4 * i)) & 0xF);
+            if (e > 1) score += (long) (e - 1) << e;
+        }
+        return score;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.demo.game2048.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HeuristicEvaluatorTest {
+
+    private static final int BOARDS = 100_000;
+
+    /**
+     * The table evaluator must match the original int[][] heuristic (BaselineHeuristic) to within a
+     * relative error of HeuristicEvaluator.TOLERANCE.
+     */
+    @Test
+    void tableEvaluatorMatchesBaselineHeuristicOnRandomBoards() {
+        Random random = new Random(2048);
+        for (int i = 0; i < BOARDS; i++) {
+            long board = randomBoard(random);
+            double expected = BaselineHeuristic.evaluateBoard(Bitboard.toArray(board));
+            double actual = HeuristicEvaluator.evaluate(board);
+            assertEquals(expected, actual, HeuristicEvaluator.TOLERANCE * Math.max(1.0, Math.abs(expected)),
+                    () -> "board " + Long.toHexString(board));
+        }
+    }
+
+    @Test
+    void tableEvaluatorPicksTheSameMoveAsBaseline() {
+        Random random = new Random(4096);
+        for (int i = 0; i < BOARDS; i++) {
+            long board = randomBoard(random);
+            int expected = bestGreedyMove(board, true);
+            if (expected >= 0) {
+                assertEquals(expected, bestGreedyMove(board, false), () -> "board " + Long.toHexString(board));
+            }
+        }
+    }
+
+    // Best one-ply move, or -1 when no move is possible or the top two moves are tied within tolerance
+    private static int bestGreedyMove(long board, boolean baseline) {
+        int bestMove = -1;
+        double best = Double.NEGATIVE_INFINITY;
+        double second = Double.NEGATIVE_INFINITY;
+        for (int move = 0; move < 4; move++) {
+            long next = Bitboard.move(board, move);
+            if (next == board) continue;
+            double eval = baseline
+                    ? BaselineHeuristic.evaluateBoard(Bitboard.toArray(next))
+                    : HeuristicEvaluator.evaluate(next);
+            double score = eval + Bitboard.moveScore(board, move);
+            if (score > best) {
+                second = best;
+                best = score;
+                bestMove = move;
+            } else if (score > second) {
+                second = score;
+            }
+        }
+        if (bestMove >= 0 && best - second <= 2 * HeuristicEvaluator.TOLERANCE * Math.abs(best)) {
+            return -1;
+        }
+        return bestMove;
+    }
+
+    private static long randomBoard(Random random) {
+        int fill = random.nextInt(17);
+        long board = 0;
+        for (int cell = 0; cell < 16; cell++) {
+            if (random.nextInt(16) < fill) {
+                board = Bitboard.withExponent(board, cell, 1 + random.nextInt(Bitboard.MAX_EXPONENT));
+            }
+        }
+        return board;
+    }
+}
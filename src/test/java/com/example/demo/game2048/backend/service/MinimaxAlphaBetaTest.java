@@ -0,0 +1,88 @@
+package com.example.demo.game2048.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MinimaxAlphaBetaTest {
+
+    private static final int BOARDS = 200;
+
+    /**
+     * Alpha-beta must pick exactly the move plain minimax picks, while visiting far fewer nodes.
+     * Covers every depth up to SearchContext.MAX_DEPTH, the deepest a fixed-depth hint uses. The
+     * transposition table is off so node counts measure the pruning alone.
+     */
+    @Test
+    void alphaBetaPicksTheSameMovesAsMinimaxWithFewerNodes() {
+        AiAlgorithms ai = new AiAlgorithms();
+        ReflectionTestUtils.setField(ai, "transpositionTable", new TranspositionTable(0, false));
+
+        for (int depth = 2; depth <= SearchContext.MAX_DEPTH; depth++) {
+            Random random = new Random(1000 + depth);
+            long minimaxNodes = 0;
+            long alphaBetaNodes = 0;
+            for (int i = 0; i < BOARDS; i++) {
+                long board = randomBoard(random);
+                SearchContext reference = SearchContext.of("MINIMAX", depth).withParallel(false);
+                SearchContext pruned = SearchContext.of("MINIMAX", depth).withParallel(false);
+
+                String expected = ai.minimaxReferenceMove(board, reference);
+                String actual = ai.alphaBetaMove(board, pruned);
+                int d = depth;
+                assertEquals(expected, actual, () -> "depth " + d + " board " + Long.toHexString(board));
+
+                minimaxNodes += reference.nodes.sum();
+                alphaBetaNodes += pruned.nodes.sum();
+            }
+            System.out.println("Minimax depth " + depth + ": " + minimaxNodes + " nodes, alpha-beta "
+                    + alphaBetaNodes + " nodes over " + BOARDS + " boards");
+            if (depth >= 3) {
+                assertTrue(alphaBetaNodes * 2 < minimaxNodes,
+                        "alpha-beta " + alphaBetaNodes + " vs minimax " + minimaxNodes + " at depth " + depth);
+            }
+        }
+    }
+
+    /**
+     * Root moves after the first run as fork/join tasks with wider windows; the pick must not change.
+     */
+    @Test
+    void parallelAlphaBetaPicksTheSameMovesAsMinimax() {
+        AiAlgorithms ai = new AiAlgorithms();
+        ReflectionTestUtils.setField(ai, "transpositionTable", new TranspositionTable(0, false));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ReflectionTestUtils.setField(ai, "aiSearchPool", pool);
+        ReflectionTestUtils.setField(ai, "parallelEnabled", true);
+        try {
+            for (int depth = 2; depth <= SearchContext.MAX_DEPTH; depth++) {
+                Random random = new Random(2000 + depth);
+                for (int i = 0; i < BOARDS / 4; i++) {
+                    long board = randomBoard(random);
+                    String expected = ai.minimaxReferenceMove(board, SearchContext.of("MINIMAX", depth).withParallel(false));
+                    String actual = ai.alphaBetaMove(board, SearchContext.of("MINIMAX", depth));
+                    int d = depth;
+                    assertEquals(expected, actual, () -> "depth " + d + " board " + Long.toHexString(board));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Midgame-like boards: a few random moves from a fresh start
+    private static long randomBoard(Random random) {
+        long board = Bitboard.spawnTile(Bitboard.spawnTile(0L, random), random);
+        int moves = 10 + random.nextInt(60);
+        for (int m = 0; m < moves && !Bitboard.isGameOver(board); m++) {
+            long next = Bitboard.move(board, random.nextInt(4));
+            if (next != board) board = Bitboard.spawnTile(next, random);
+        }
+        return board;
+    }
+}